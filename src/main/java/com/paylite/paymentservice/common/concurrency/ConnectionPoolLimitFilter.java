@@ -0,0 +1,96 @@
+package com.paylite.paymentservice.common.concurrency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.paylite.paymentservice.common.exceptions.ErrorDetails;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of API requests doing database work at once to roughly the size of
+ * the connection pool. With virtual threads nothing else bounds request concurrency,
+ * so without this thousands of threads would queue inside Hikari until they time out.
+ * Requests that cannot get a permit within the acquire timeout are shed with 503.
+ */
+@Slf4j
+public class ConnectionPoolLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long acquireTimeoutNanos;
+    private final Counter rejectedCounter;
+    private final ObjectMapper objectMapper;
+
+    public ConnectionPoolLimitFilter(int maxConcurrent, Duration acquireTimeout, MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.rejectedCounter = Counter.builder("http.db.limiter.rejected")
+                .description("Requests shed because no database permit was available")
+                .register(meterRegistry);
+        Gauge.builder("http.db.limiter.in_use", this, filter -> filter.maxConcurrent - filter.permits.availablePermits())
+                .description("Requests currently holding a database permit")
+                .register(meterRegistry);
+        Gauge.builder("http.db.limiter.waiting", permits, Semaphore::getQueueLength)
+                .description("Requests waiting for a database permit")
+                .register(meterRegistry);
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            rejectedCounter.increment();
+            log.warn("Shedding request to {}: all {} database permits in use", request.getRequestURI(), maxConcurrent);
+            sendErrorResponse(response, request.getRequestURI());
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void sendErrorResponse(HttpServletResponse response, String path) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setContentType("application/json");
+        response.setHeader("Retry-After", "1");
+
+        ErrorDetails errorDetails = new ErrorDetails();
+        errorDetails.setTimestamp(LocalDateTime.now());
+        errorDetails.setMessage("Service is busy, retry later");
+        errorDetails.setDetails(path);
+        errorDetails.setValidationErrors(Collections.emptyMap());
+
+        response.getWriter().write(objectMapper.writeValueAsString(errorDetails));
+    }
+}
@@ -0,0 +1,15 @@
+package com.paylite.paymentservice.common.entity;
+
+import com.paylite.paymentservice.common.utilities.TimeOrderedUuidGenerator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+import java.util.UUID;
+
+public class TimeOrderedUuidValueGenerator implements UuidValueGenerator {
+
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return TimeOrderedUuidGenerator.next();
+    }
+}
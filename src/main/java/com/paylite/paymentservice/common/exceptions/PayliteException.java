@@ -40,7 +40,15 @@ public class PayliteException extends RuntimeException {
         return new PayliteException(HttpStatus.UNAUTHORIZED, message);
     }
 
+    public static PayliteException payloadTooLarge(String message) {
+        return new PayliteException(HttpStatus.PAYLOAD_TOO_LARGE, message);
+    }
+
     public static PayliteException internalError(String message) {
         return new PayliteException(HttpStatus.INTERNAL_SERVER_ERROR, message);
     }
+
+    public static PayliteException serviceUnavailable(String message) {
+        return new PayliteException(HttpStatus.SERVICE_UNAVAILABLE, message);
+    }
 }
\ No newline at end of file
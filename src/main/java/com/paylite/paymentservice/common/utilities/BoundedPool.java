@@ -0,0 +1,47 @@
+package com.paylite.paymentservice.common.utilities;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A lock-free pool of reusable objects that keeps at most {@code maxIdle} of them idle;
+ * releases beyond that are left to the GC. Pooled rather than thread-local so reuse still
+ * works when requests run on short-lived virtual threads.
+ */
+public class BoundedPool<T> {
+    private final int maxIdle;
+    private final Supplier<T> factory;
+    private final Consumer<T> reset;
+    private final Queue<T> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    /**
+     * @param reset applied to every released object before it can be handed out again
+     */
+    public BoundedPool(int maxIdle, Supplier<T> factory, Consumer<T> reset) {
+        this.maxIdle = maxIdle;
+        this.factory = factory;
+        this.reset = reset;
+    }
+
+    public T acquire() {
+        T object = idle.poll();
+        if (object != null) {
+            idleCount.decrementAndGet();
+            return object;
+        }
+        return factory.get();
+    }
+
+    public void release(T object) {
+        reset.accept(object);
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(object);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+}
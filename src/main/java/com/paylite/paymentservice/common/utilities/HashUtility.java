@@ -2,6 +2,8 @@ package com.paylite.paymentservice.common.utilities;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -10,16 +12,100 @@ import java.util.Base64;
 @Slf4j
 @Component
 public class HashUtility {
+    private static final String ALGORITHM = "SHA-256";
+    private static final int MAX_IDLE_DIGESTS = 64;
+
+    private final BoundedPool<MessageDigest> digests =
+            new BoundedPool<>(MAX_IDLE_DIGESTS, HashUtility::newDigest, MessageDigest::reset);
 
     public String generateSha256Hash(String input) {
+        return Base64.getEncoder().encodeToString(sha256(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public byte[] sha256(byte[] input) {
+        return sha256(ByteBuffer.wrap(input));
+    }
+
+    /**
+     * Raw 32-byte SHA-256 of the remaining bytes; the caller's buffer position is left untouched.
+     */
+    public byte[] sha256(ByteBuffer input) {
+        MessageDigest digest = acquire();
+        try {
+            digest.update(input.duplicate());
+            return digest.digest();
+        } finally {
+            release(digest);
+        }
+    }
+
+    /**
+     * An output stream that hashes whatever is written to it, e.g. by a Jackson generator,
+     * so large inputs never need to be materialized as a String or byte array.
+     */
+    public Sha256Sink newSha256Sink() {
+        return new Sha256Sink(acquire());
+    }
+
+    private MessageDigest acquire() {
+        return digests.acquire();
+    }
+
+    private void release(MessageDigest digest) {
+        digests.release(digest);
+    }
+
+    private static MessageDigest newDigest() {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(input.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hash);
+            return MessageDigest.getInstance(ALGORITHM);
         } catch (NoSuchAlgorithmException e) {
             log.error("SHA-256 algorithm not available", e);
             throw new RuntimeException("Hash algorithm not available", e);
         }
     }
-}
 
+    public final class Sha256Sink extends OutputStream {
+        private MessageDigest digest;
+
+        private Sha256Sink(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        public void write(int b) {
+            current().update((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            current().update(b, off, len);
+        }
+
+        /**
+         * Finishes the hash and hands the digest back to the pool; the sink cannot be written after this.
+         */
+        public byte[] digest() {
+            MessageDigest finished = current();
+            digest = null;
+            try {
+                return finished.digest();
+            } finally {
+                release(finished);
+            }
+        }
+
+        public String digestBase64() {
+            return Base64.getEncoder().encodeToString(digest());
+        }
+
+        // close() is inherited as a no-op: Jackson closes its target when done writing,
+        // which must not end the hash before digest() is read
+
+        private MessageDigest current() {
+            if (digest == null) {
+                throw new IllegalStateException("Hash already finished");
+            }
+            return digest;
+        }
+    }
+}
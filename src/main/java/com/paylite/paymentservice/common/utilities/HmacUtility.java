@@ -6,35 +6,91 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Component
 public class HmacUtility {
+    private static final String ALGORITHM = "HmacSHA256";
+    // Idle Mac instances kept per secret; beyond this, released instances are left to the GC
+    private static final int MAX_IDLE_PER_SECRET = 64;
+
+    private final Map<String, BoundedPool<Mac>> pools = new ConcurrentHashMap<>();
 
     public String computeHmacSha256(String data, String secret) {
+        return Base64.getEncoder().encodeToString(computeHmacSha256(data.getBytes(StandardCharsets.UTF_8), secret));
+    }
+
+    public byte[] computeHmacSha256(byte[] data, String secret) {
+        return computeHmacSha256(ByteBuffer.wrap(data), secret);
+    }
+
+    public byte[] computeHmacSha256(ByteBuffer data, String secret) {
+        BoundedPool<Mac> pool = pools.computeIfAbsent(secret, HmacUtility::newPool);
+        Mac mac = pool.acquire();
         try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKeySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            mac.init(secretKeySpec);
-            byte[] hmacData = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hmacData);
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            log.error("Error computing HMAC-SHA256", e);
-            throw new RuntimeException("HMAC computation failed", e);
+            // duplicate() so the caller's buffer position is left untouched
+            mac.update(data.duplicate());
+            return mac.doFinal();
+        } finally {
+            pool.release(mac);
         }
     }
 
     public boolean verifyHmacSignature(String signature, String data, String secret) {
+        return verifyHmacSignature(signature, data.getBytes(StandardCharsets.UTF_8), secret);
+    }
+
+    public boolean verifyHmacSignature(String signature, byte[] data, String secret) {
+        return verifyHmacSignature(signature, ByteBuffer.wrap(data), secret);
+    }
+
+    /**
+     * Verifies a Base64 HMAC-SHA256 signature over the given bytes.
+     * The signature is decoded once and compared as raw bytes in constant time.
+     */
+    public boolean verifyHmacSignature(String signature, ByteBuffer data, String secret) {
+        if (signature == null) {
+            return false;
+        }
+        byte[] expected;
+        try {
+            expected = Base64.getDecoder().decode(signature.trim());
+        } catch (IllegalArgumentException e) {
+            log.debug("Webhook signature is not valid Base64");
+            return false;
+        }
         try {
-            String computedSignature = computeHmacSha256(data, secret);
-            return computedSignature.equals(signature);
+            return MessageDigest.isEqual(expected, computeHmacSha256(data, secret));
         } catch (Exception e) {
             log.error("Error verifying HMAC signature", e);
             return false;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Initialized Mac instances for one secret.
+     */
+    private static BoundedPool<Mac> newPool(String secret) {
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        // doFinal() already resets; reset again in case the computation was interrupted mid-update
+        return new BoundedPool<>(MAX_IDLE_PER_SECRET, () -> newMac(key), Mac::reset);
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            log.error("Error computing HMAC-SHA256", e);
+            throw new RuntimeException("HMAC computation failed", e);
+        }
+    }
+}
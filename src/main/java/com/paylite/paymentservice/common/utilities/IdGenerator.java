@@ -1,5 +1,7 @@
 package com.paylite.paymentservice.common.utilities;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.UUID;
@@ -7,7 +9,34 @@ import java.util.UUID;
 @Component
 public class IdGenerator {
 
+    public enum Mode {
+        // "pl_" + 8 random hex characters
+        RANDOM,
+        // "pl_" + 13 time-ordered characters, unique per node id
+        SORTABLE
+    }
+
+    private final SortablePaymentIdGenerator sortableGenerator;
+
+    public IdGenerator() {
+        this.sortableGenerator = null;
+    }
+
+    @Autowired
+    public IdGenerator(@Value("${app.payment-id.mode:random}") Mode mode,
+                       @Value("${app.payment-id.node-id:-1}") int nodeId) {
+        if (mode == Mode.SORTABLE && (nodeId < 0 || nodeId > SortablePaymentIdGenerator.MAX_NODE_ID)) {
+            // Two nodes sharing an id could mint the same payment id within one millisecond
+            throw new IllegalStateException("app.payment-id.mode=sortable needs an explicit app.payment-id.node-id between 0 and "
+                    + SortablePaymentIdGenerator.MAX_NODE_ID + ", distinct per node; got " + nodeId);
+        }
+        this.sortableGenerator = mode == Mode.SORTABLE ? new SortablePaymentIdGenerator(nodeId) : null;
+    }
+
     public String generatePaymentId() {
+        if (sortableGenerator != null) {
+            return sortableGenerator.nextId();
+        }
         return "pl_" + UUID.randomUUID().toString().substring(0, 8);
     }
 
@@ -16,4 +45,4 @@ public class IdGenerator {
                 paymentId,
                 eventType);
     }
-}
\ No newline at end of file
+}
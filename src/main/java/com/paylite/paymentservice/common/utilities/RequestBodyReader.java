@@ -0,0 +1,127 @@
+package com.paylite.paymentservice.common.utilities;
+
+import com.paylite.paymentservice.common.exceptions.PayliteException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads a request body exactly as sent into a pooled byte buffer, so signature checks,
+ * JSON parsing and storage all work from the same bytes without intermediate Strings.
+ */
+@Component
+public class RequestBodyReader {
+    static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_IDLE_BUFFERS = 256;
+
+    private final int maxBodyBytes;
+    private final BoundedPool<byte[]> buffers =
+            new BoundedPool<>(MAX_IDLE_BUFFERS, () -> new byte[BUFFER_SIZE], buffer -> { });
+
+    public RequestBodyReader(@Value("${app.request.max-body-size:1MB}") DataSize maxBodySize) {
+        this.maxBodyBytes = (int) Math.min(maxBodySize.toBytes(), Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * Reads the whole body, rejecting it with 413 once it exceeds the configured limit.
+     * The returned body must be closed to hand its buffer back to the pool.
+     */
+    public Body read(HttpServletRequest request) throws IOException {
+        long declaredLength = request.getContentLengthLong();
+        if (declaredLength > maxBodyBytes) {
+            throw tooLarge();
+        }
+
+        byte[] buffer = declaredLength > BUFFER_SIZE ? new byte[(int) declaredLength] : acquire();
+        int length = 0;
+        try (InputStream in = request.getInputStream()) {
+            while (true) {
+                if (length == buffer.length) {
+                    // Buffer is full: only grow if the body really continues
+                    int next = in.read();
+                    if (next == -1) {
+                        break;
+                    }
+                    if (length >= maxBodyBytes) {
+                        throw tooLarge();
+                    }
+                    byte[] grown = Arrays.copyOf(buffer, (int) Math.min((long) buffer.length * 2, maxBodyBytes));
+                    release(buffer);
+                    buffer = grown;
+                    buffer[length++] = (byte) next;
+                }
+                int read = in.read(buffer, length, buffer.length - length);
+                if (read == -1) {
+                    break;
+                }
+                length += read;
+                if (length > maxBodyBytes) {
+                    throw tooLarge();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            release(buffer);
+            throw e;
+        }
+        return new Body(buffer, length);
+    }
+
+    private byte[] acquire() {
+        return buffers.acquire();
+    }
+
+    private void release(byte[] buffer) {
+        // Only standard-size buffers are pooled; oversized bodies are left to the GC
+        if (buffer.length == BUFFER_SIZE) {
+            buffers.release(buffer);
+        }
+    }
+
+    private PayliteException tooLarge() {
+        return PayliteException.payloadTooLarge("Request body exceeds " + maxBodyBytes + " bytes");
+    }
+
+    /**
+     * The raw bytes of one request body, valid until closed.
+     */
+    public final class Body implements AutoCloseable {
+        private byte[] buffer;
+        private final int length;
+
+        private Body(byte[] buffer, int length) {
+            this.buffer = buffer;
+            this.length = length;
+        }
+
+        public byte[] array() {
+            return buffer;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(buffer, 0, length).asReadOnlyBuffer();
+        }
+
+        public String asString() {
+            return new String(buffer, 0, length, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() {
+            if (buffer != null) {
+                release(buffer);
+                buffer = null;
+            }
+        }
+    }
+}
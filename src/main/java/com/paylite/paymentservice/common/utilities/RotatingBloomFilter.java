@@ -0,0 +1,138 @@
+package com.paylite.paymentservice.common.utilities;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A set-membership filter over a sliding window of generations of Bloom filters.
+ * Lookups check every generation; inserts go to the newest one. Rotating drops the oldest
+ * generation, so memory stays fixed at generations x bits-per-generation and old entries age out.
+ * A negative answer is definite for everything inserted within the retained generations.
+ */
+public class RotatingBloomFilter {
+    private final int generationCount;
+    private final long capacityPerGeneration;
+    private final int bitsPerGeneration;
+    private final int hashFunctions;
+
+    // Newest generation first; replaced wholesale on rotation so readers never see a half-rotated ring
+    private volatile Generation[] generations;
+
+    public RotatingBloomFilter(int generationCount, long capacityPerGeneration, double falsePositiveProbability) {
+        if (generationCount < 1 || capacityPerGeneration < 1) {
+            throw new IllegalArgumentException("Generation count and capacity must be positive");
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("False positive probability must be between 0 and 1");
+        }
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-capacityPerGeneration * Math.log(falsePositiveProbability) / (ln2 * ln2));
+        // Round up to whole longs, capped so one generation fits an AtomicLongArray
+        this.bitsPerGeneration = (int) Math.min(Math.max(64, (bits + 63) & ~63L), (long) Integer.MAX_VALUE - 63 & ~63L);
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitsPerGeneration / capacityPerGeneration * ln2));
+        this.generationCount = generationCount;
+        this.capacityPerGeneration = capacityPerGeneration;
+
+        Generation[] initial = new Generation[generationCount];
+        for (int i = 0; i < generationCount; i++) {
+            initial[i] = new Generation(bitsPerGeneration);
+        }
+        this.generations = initial;
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = hash(value, 0x9E3779B97F4A7C15L);
+        long h2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (Generation generation : generations) {
+            if (generation.contains(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds to the newest generation, rotating first if it has reached capacity so the
+     * false positive rate stays near the configured bound under bursts.
+     */
+    public void put(String value) {
+        Generation newest = generations[0];
+        if (newest.count.get() >= capacityPerGeneration) {
+            rotateIfNewest(newest);
+            newest = generations[0];
+        }
+        newest.add(hash(value, 0x9E3779B97F4A7C15L), hash(value, 0xC2B2AE3D27D4EB4FL) | 1);
+    }
+
+    /**
+     * Starts a fresh generation and forgets the oldest one.
+     */
+    public synchronized void rotate() {
+        Generation[] rotated = new Generation[generationCount];
+        rotated[0] = new Generation(bitsPerGeneration);
+        System.arraycopy(generations, 0, rotated, 1, generationCount - 1);
+        generations = rotated;
+    }
+
+    public long size() {
+        long size = 0;
+        for (Generation generation : generations) {
+            size += generation.count.get();
+        }
+        return size;
+    }
+
+    public long memoryBytes() {
+        return (long) generationCount * bitsPerGeneration / 8;
+    }
+
+    private synchronized void rotateIfNewest(Generation full) {
+        // Another writer may already have rotated past this generation
+        if (generations[0] == full) {
+            rotate();
+        }
+    }
+
+    private final class Generation {
+        private final AtomicLongArray bits;
+        private final AtomicLong count = new AtomicLong();
+
+        Generation(int bitCount) {
+            this.bits = new AtomicLongArray(bitCount / 64);
+        }
+
+        boolean contains(long h1, long h2) {
+            for (int i = 0; i < hashFunctions; i++) {
+                int bit = (int) Math.floorMod(h1 + i * h2, (long) bitsPerGeneration);
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void add(long h1, long h2) {
+            for (int i = 0; i < hashFunctions; i++) {
+                int bit = (int) Math.floorMod(h1 + i * h2, (long) bitsPerGeneration);
+                long mask = 1L << bit;
+                bits.getAndAccumulate(bit >>> 6, mask, (current, m) -> current | m);
+            }
+            count.incrementAndGet();
+        }
+    }
+
+    private static long hash(String value, long seed) {
+        // 64-bit multiply-xorshift over the UTF-16 code units, finished with the murmur3 fmix64 avalanche
+        long h = seed ^ value.length();
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001B3L;
+            h ^= h >>> 29;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,62 @@
+package com.paylite.paymentservice.common.utilities;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style payment ids: 41 bits of milliseconds since 2024-01-01, a 10-bit node id and a
+ * 12-bit per-millisecond sequence, rendered as 13 fixed-width Crockford base32 characters after "pl_".
+ * Ids are unique across nodes with distinct node ids, sort lexicographically by creation time
+ * and are produced with a single CAS and no SecureRandom.
+ */
+public class SortablePaymentIdGenerator {
+    public static final String PREFIX = "pl_";
+    public static final int MAX_NODE_ID = 1023;
+
+    private static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int ENCODED_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final long nodeBits;
+    // (milliseconds since epoch << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong lastState = new AtomicLong();
+
+    public SortablePaymentIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    public String nextId() {
+        long state = nextState();
+        long timestamp = state >>> SEQUENCE_BITS;
+        long sequence = state & SEQUENCE_MASK;
+        return encode((timestamp << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence);
+    }
+
+    private long nextState() {
+        while (true) {
+            long last = lastState.get();
+            long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+            // Same millisecond (or a clock step back): take the next sequence; an exhausted
+            // sequence carries into the timestamp so we never wait and never repeat
+            long candidate = now > last ? now : last + 1;
+            if (lastState.compareAndSet(last, candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static String encode(long value) {
+        char[] chars = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,65 @@
+package com.paylite.paymentservice.common.utilities;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates RFC 9562 version 7 UUIDs: a 48-bit Unix millisecond timestamp followed by a 12-bit
+ * per-millisecond counter and 62 random bits. Consecutive ids from one JVM are strictly increasing,
+ * so BINARY(16) primary keys are appended to the right edge of the InnoDB clustered index
+ * instead of landing on random pages.
+ */
+public final class TimeOrderedUuidGenerator {
+    private static final long COUNTER_BITS = 12;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    // timestamp (ms) << 12 | counter of the last id handed out
+    private static final AtomicLong LAST_STATE = new AtomicLong();
+
+    private TimeOrderedUuidGenerator() {
+    }
+
+    public static UUID next() {
+        long state = nextState();
+        long timestamp = state >>> COUNTER_BITS;
+        long counter = state & COUNTER_MASK;
+
+        long mostSigBits = (timestamp << 16) | (0x7L << 12) | counter;
+        long leastSigBits = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    public static long timestampOf(UUID uuid) {
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+
+    /**
+     * The big-endian 16-byte form Hibernate stores in BINARY(16) id columns, for writes that bypass JPA.
+     */
+    public static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    public static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static long nextState() {
+        while (true) {
+            long last = LAST_STATE.get();
+            long now = System.currentTimeMillis() << COUNTER_BITS;
+            // Same (or earlier, if the clock stepped back) millisecond: bump the counter,
+            // which carries into the timestamp when exhausted and keeps ids increasing
+            long candidate = now > last ? now : last + 1;
+            if (LAST_STATE.compareAndSet(last, candidate)) {
+                return candidate;
+            }
+        }
+    }
+}
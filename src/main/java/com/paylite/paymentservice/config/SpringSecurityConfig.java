@@ -44,6 +44,7 @@ public class SpringSecurityConfig {
                                 "/error",
                                 "/actuator/health",
                                 "/api/v1/webhooks/psp",
+                                "/api/v1/webhooks/psp/batch",
                                 "/swagger-ui/**",
                                 "/v3/api-docs/**",
                                 "/swagger-resources/**",
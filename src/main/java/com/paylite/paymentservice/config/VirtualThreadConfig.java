@@ -0,0 +1,35 @@
+package com.paylite.paymentservice.config;
+
+import com.paylite.paymentservice.common.concurrency.ConnectionPoolLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Virtual threads themselves are switched on with spring.threads.virtual.enabled, which moves
+ * Tomcat request handling, the application task executor and the scheduler onto them.
+ * This config adds the connection-pool-aware limiter that has to go with that mode.
+ */
+@Configuration
+public class VirtualThreadConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.concurrency.limiter.enabled", havingValue = "true")
+    public FilterRegistrationBean<ConnectionPoolLimitFilter> connectionPoolLimitFilter(
+            @Value("${app.concurrency.max-db-requests:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrent,
+            @Value("${app.concurrency.acquire-timeout:2s}") Duration acquireTimeout,
+            MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ConnectionPoolLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConnectionPoolLimitFilter(maxConcurrent, acquireTimeout, meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        // After the security chain, so rejected callers never hold a permit
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,18 @@
+package com.paylite.paymentservice.modules.outbox.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A seq the relay moved past without seeing its row: either still uncommitted or rolled back.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxGap {
+    private long seq;
+    private LocalDateTime detectedAt;
+}
@@ -0,0 +1,26 @@
+package com.paylite.paymentservice.modules.outbox.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+    private long seq;
+    private String aggregateId;
+    private String eventType;
+    // Already JSON; written into the feed as-is rather than as an escaped string
+    @JsonRawValue
+    private String payload;
+    private LocalDateTime createdAt;
+    // How old the row was when read, on the database clock that wrote created_at
+    @JsonIgnore
+    private Duration age;
+}
@@ -0,0 +1,18 @@
+package com.paylite.paymentservice.modules.outbox.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentStatusChangedEvent {
+    public static final String TYPE = "payment.status_changed";
+
+    private String paymentId;
+    private String status;
+    private Instant occurredAt;
+}
@@ -0,0 +1,137 @@
+package com.paylite.paymentservice.modules.outbox.repository;
+
+import com.paylite.paymentservice.modules.outbox.dto.OutboxGap;
+import com.paylite.paymentservice.modules.outbox.dto.OutboxMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * JDBC access to the append-only outbox_events table and the relay checkpoints.
+ * Rows are never updated, so there is no entity or persistence context behind them.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OutboxRepository {
+    private static final RowMapper<OutboxMessage> MESSAGE_ROW_MAPPER = (rs, rowNum) -> new OutboxMessage(
+            rs.getLong("seq"),
+            rs.getString("aggregate_id"),
+            rs.getString("event_type"),
+            rs.getString("payload"),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            Duration.of(rs.getLong("age_micros"), ChronoUnit.MICROS));
+    // Ages come from the database clock; the JVM's may be skewed or in another time zone
+    private static final String MESSAGE_COLUMNS =
+            "seq, aggregate_id, event_type, payload, created_at, TIMESTAMPDIFF(MICROSECOND, created_at, NOW(3)) AS age_micros";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Appends one row per aggregate as a single JDBC batch; joins the caller's transaction.
+     */
+    public void appendAll(String eventType, List<String> aggregateIds, List<String> payloads) {
+        jdbcTemplate.batchUpdate("INSERT INTO outbox_events (aggregate_id, event_type, payload) VALUES (?, ?, ?)",
+                IntStream.range(0, aggregateIds.size())
+                        .mapToObj(i -> new Object[]{aggregateIds.get(i), eventType, payloads.get(i)})
+                        .toList());
+    }
+
+    public List<OutboxMessage> findAfter(long seq, int limit) {
+        return jdbcTemplate.query("SELECT " + MESSAGE_COLUMNS + " FROM outbox_events "
+                + "WHERE seq > ? ORDER BY seq LIMIT ?", MESSAGE_ROW_MAPPER, seq, limit);
+    }
+
+    public Long findMaxSeq() {
+        return jdbcTemplate.queryForObject("SELECT MAX(seq) FROM outbox_events", Long.class);
+    }
+
+    /**
+     * Reads the relay's checkpoint and locks it until the caller's transaction ends,
+     * so only one node drains the outbox at a time.
+     */
+    public long lockCheckpoint(String relayName) {
+        List<Long> checkpoint = selectCheckpointForUpdate(relayName);
+        if (checkpoint.isEmpty()) {
+            try {
+                jdbcTemplate.update("INSERT INTO outbox_checkpoints (relay_name, last_seq) VALUES (?, 0)", relayName);
+            } catch (DuplicateKeyException e) {
+                // Another node created it first; fall through and wait for its lock
+            }
+            checkpoint = selectCheckpointForUpdate(relayName);
+        }
+        return checkpoint.get(0);
+    }
+
+    public void saveCheckpoint(String relayName, long seq) {
+        jdbcTemplate.update("UPDATE outbox_checkpoints SET last_seq = ? WHERE relay_name = ?", seq, relayName);
+    }
+
+    public List<OutboxMessage> findBySeqs(Collection<Long> seqs) {
+        if (seqs.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query("SELECT " + MESSAGE_COLUMNS + " FROM outbox_events "
+                + "WHERE seq IN (" + placeholders(seqs.size()) + ") ORDER BY seq", MESSAGE_ROW_MAPPER, seqs.toArray());
+    }
+
+    /**
+     * Deletes exactly the delivered rows. Never a seq range: a row committing late inside the
+     * range would be removed before it was ever read.
+     */
+    public int deleteAll(Collection<Long> seqs) {
+        if (seqs.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update("DELETE FROM outbox_events WHERE seq IN (" + placeholders(seqs.size()) + ")",
+                seqs.toArray());
+    }
+
+    public List<OutboxGap> findGaps(String relayName) {
+        return jdbcTemplate.query("SELECT seq, detected_at FROM outbox_gaps WHERE relay_name = ? ORDER BY seq",
+                (rs, rowNum) -> new OutboxGap(rs.getLong("seq"), rs.getTimestamp("detected_at").toLocalDateTime()),
+                relayName);
+    }
+
+    public void recordGaps(String relayName, List<Long> seqs) {
+        jdbcTemplate.batchUpdate("INSERT INTO outbox_gaps (relay_name, seq) VALUES (?, ?)",
+                seqs.stream().map(seq -> new Object[]{relayName, seq}).toList());
+    }
+
+    /**
+     * Forgets gaps recorded longer ago than the retention, measured on the database clock.
+     */
+    public int deleteGapsOlderThan(String relayName, Duration retention) {
+        return jdbcTemplate.update("DELETE FROM outbox_gaps WHERE relay_name = ? "
+                + "AND TIMESTAMPDIFF(MICROSECOND, detected_at, NOW(3)) > ?", relayName, retention.toNanos() / 1000);
+    }
+
+    public void deleteGaps(String relayName, Collection<Long> seqs) {
+        if (seqs.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>(seqs.size() + 1);
+        args.add(relayName);
+        args.addAll(seqs);
+        jdbcTemplate.update("DELETE FROM outbox_gaps WHERE relay_name = ? AND seq IN (" + placeholders(seqs.size()) + ")",
+                args.toArray());
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private List<Long> selectCheckpointForUpdate(String relayName) {
+        return jdbcTemplate.queryForList(
+                "SELECT last_seq FROM outbox_checkpoints WHERE relay_name = ? FOR UPDATE", Long.class, relayName);
+    }
+}
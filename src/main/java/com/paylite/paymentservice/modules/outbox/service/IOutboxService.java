@@ -0,0 +1,17 @@
+package com.paylite.paymentservice.modules.outbox.service;
+
+import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+
+import java.util.Collection;
+
+public interface IOutboxService {
+
+    /**
+     * Record that payments moved to a new status, in the caller's transaction, so the
+     * event is published if and only if the change commits
+     *
+     * @param paymentIds The payments whose status changed
+     * @param status     The status they moved to
+     */
+    void recordPaymentStatusChanges(Collection<String> paymentIds, PaymentStatus status);
+}
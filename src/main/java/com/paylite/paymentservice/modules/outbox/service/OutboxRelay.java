@@ -0,0 +1,233 @@
+package com.paylite.paymentservice.modules.outbox.service;
+
+import com.paylite.paymentservice.modules.outbox.dto.OutboxGap;
+import com.paylite.paymentservice.modules.outbox.dto.OutboxMessage;
+import com.paylite.paymentservice.modules.outbox.repository.OutboxRepository;
+import com.paylite.paymentservice.modules.outbox.sink.OutboxSink;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox to every configured sink in seq order. Each batch is delivered, checkpointed
+ * and removed in one transaction that also holds the checkpoint row lock, so delivery is
+ * at-least-once and only one node relays at a time.
+ * <p>
+ * Seqs are allocated when rows are inserted but become visible at commit, so a gap may be a
+ * transaction that has not committed yet. The relay waits at a gap for up to the gap timeout to
+ * keep the feed in order, then records the missing seqs and moves on. Recorded gaps are re-checked
+ * on every run and a row that commits late is delivered then. A gap is only forgotten after the
+ * gap retention, which must outlast every writer transaction; spring.transaction.default-timeout
+ * enforces that bound, and startup fails unless the retention exceeds it. Row and gap ages are
+ * measured by the database, on the clock that wrote them, never against the JVM's clock.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+    static final String RELAY_NAME = "payment-events";
+
+    private final OutboxRepository outboxRepository;
+    private final List<OutboxSink> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration gapTimeout;
+    private final Duration gapRetention;
+
+    private final Counter deliveredCounter;
+    private final Counter failureCounter;
+    private final Counter lateDeliveredCounter;
+    private final Counter expiredGapCounter;
+    private final Timer batchTimer;
+    private final AtomicLong checkpoint = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final AtomicLong openGaps = new AtomicLong();
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       List<OutboxSink> sinks,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${app.outbox.enabled:true}") boolean enabled,
+                       @Value("${app.outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${app.outbox.relay.max-batches-per-run:20}") int maxBatchesPerRun,
+                       @Value("${app.outbox.relay.gap-timeout:5s}") Duration gapTimeout,
+                       @Value("${app.outbox.relay.gap-retention:5m}") Duration gapRetention,
+                       @Value("${spring.transaction.default-timeout:0s}") Duration transactionTimeout,
+                       MeterRegistry meterRegistry) {
+        if (enabled && (transactionTimeout.isZero() || transactionTimeout.isNegative()
+                || gapRetention.compareTo(transactionTimeout) <= 0)) {
+            throw new IllegalStateException("app.outbox.relay.gap-retention (" + gapRetention
+                    + ") must exceed a positive spring.transaction.default-timeout (" + transactionTimeout
+                    + "), or a late-committing outbox row could be skipped");
+        }
+        this.outboxRepository = outboxRepository;
+        this.sinks = sinks;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.gapTimeout = gapTimeout;
+        this.gapRetention = gapRetention;
+        this.deliveredCounter = Counter.builder("outbox.relay.delivered")
+                .description("Outbox messages delivered to every sink")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("outbox.relay.failures")
+                .description("Outbox batches that failed and will be delivered again")
+                .register(meterRegistry);
+        this.lateDeliveredCounter = Counter.builder("outbox.relay.late_delivered")
+                .description("Outbox messages delivered after their seq had been recorded as a gap")
+                .register(meterRegistry);
+        this.expiredGapCounter = Counter.builder("outbox.relay.gaps_expired")
+                .description("Recorded gaps forgotten after the gap retention, taken as rolled-back inserts")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("outbox.relay.batch")
+                .description("Time to deliver and checkpoint one outbox batch")
+                .register(meterRegistry);
+        Gauge.builder("outbox.relay.checkpoint", checkpoint, AtomicLong::get)
+                .description("Highest outbox seq delivered by this node")
+                .register(meterRegistry);
+        Gauge.builder("outbox.relay.open_gaps", openGaps, AtomicLong::get)
+                .description("Skipped seqs still being re-checked for a late commit")
+                .register(meterRegistry);
+        Gauge.builder("outbox.relay.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Age in seconds of the oldest undelivered outbox message")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        if (enabled && sinks.isEmpty()) {
+            log.warn("Outbox is enabled but no sink is configured; events will accumulate until one is");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay.interval:500ms}")
+    public void relay() {
+        if (!enabled || sinks.isEmpty()) {
+            return;
+        }
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            boolean more;
+            try {
+                more = Boolean.TRUE.equals(batchTimer.record(() -> transactionTemplate.execute(status -> relayBatch())));
+            } catch (RuntimeException e) {
+                // Rolled back with the checkpoint untouched; the same messages go out on the next run
+                failureCounter.increment();
+                log.warn("Outbox relay batch failed, will retry: {}", e.getMessage());
+                return;
+            }
+            if (!more) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true if a full batch was delivered and more may be waiting
+     */
+    private boolean relayBatch() {
+        long lastSeq = outboxRepository.lockCheckpoint(RELAY_NAME);
+        checkpoint.set(lastSeq);
+        recheckGaps();
+
+        List<OutboxMessage> messages = outboxRepository.findAfter(lastSeq, batchSize);
+        if (messages.isEmpty()) {
+            lagMillis.set(0);
+            return false;
+        }
+        lagMillis.set(Math.max(0, messages.get(0).getAge().toMillis()));
+
+        List<Long> skipped = new ArrayList<>();
+        int deliverable = contiguousPrefix(lastSeq, messages, skipped);
+        if (deliverable == 0) {
+            return false;
+        }
+        List<OutboxMessage> batch = messages.subList(0, deliverable);
+        deliver(batch);
+
+        long delivered = batch.get(batch.size() - 1).getSeq();
+        if (!skipped.isEmpty()) {
+            log.warn("Outbox relay moved past {} missing seqs; they will be re-checked for late commits", skipped.size());
+            outboxRepository.recordGaps(RELAY_NAME, skipped);
+            openGaps.addAndGet(skipped.size());
+        }
+        outboxRepository.saveCheckpoint(RELAY_NAME, delivered);
+        outboxRepository.deleteAll(seqs(batch));
+        deliveredCounter.increment(batch.size());
+        checkpoint.set(delivered);
+        return deliverable == messages.size() && messages.size() == batchSize;
+    }
+
+    /**
+     * Delivers rows that committed after the relay had moved past their seq, and forgets gaps
+     * older than the retention; by then their insert can only have been rolled back.
+     */
+    private void recheckGaps() {
+        List<OutboxGap> gaps = outboxRepository.findGaps(RELAY_NAME);
+        openGaps.set(gaps.size());
+        if (gaps.isEmpty()) {
+            return;
+        }
+        List<OutboxMessage> late = outboxRepository.findBySeqs(gaps.stream().map(OutboxGap::getSeq).toList());
+        Set<Long> lateSeqs = new HashSet<>(seqs(late));
+        if (!late.isEmpty()) {
+            deliver(late);
+            outboxRepository.deleteAll(lateSeqs);
+            lateDeliveredCounter.increment(late.size());
+            log.info("Outbox relay delivered {} late-committed messages", late.size());
+        }
+
+        outboxRepository.deleteGaps(RELAY_NAME, lateSeqs);
+        // Compared in SQL: detected_at is on the database clock, which the JVM's may not match
+        int expired = outboxRepository.deleteGapsOlderThan(RELAY_NAME, gapRetention);
+        expiredGapCounter.increment(expired);
+        openGaps.set(gaps.size() - lateSeqs.size() - expired);
+    }
+
+    private void deliver(List<OutboxMessage> messages) {
+        for (OutboxSink sink : sinks) {
+            try {
+                sink.deliver(messages);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Sink " + sink.name() + " failed", e);
+            }
+        }
+    }
+
+    /**
+     * Delivery stops at a gap until the row after it is older than the gap timeout, so the feed stays
+     * in seq order across ordinary commit races. Past that the missing seqs are added to {@code skipped}.
+     */
+    int contiguousPrefix(long lastSeq, List<OutboxMessage> messages, List<Long> skipped) {
+        long expected = lastSeq + 1;
+        for (int i = 0; i < messages.size(); i++) {
+            OutboxMessage message = messages.get(i);
+            if (message.getSeq() != expected) {
+                if (message.getAge().compareTo(gapTimeout) < 0) {
+                    return i;
+                }
+                for (long seq = expected; seq < message.getSeq(); seq++) {
+                    skipped.add(seq);
+                }
+            }
+            expected = message.getSeq() + 1;
+        }
+        return messages.size();
+    }
+
+    private static List<Long> seqs(List<OutboxMessage> messages) {
+        return messages.stream().map(OutboxMessage::getSeq).toList();
+    }
+}
@@ -0,0 +1,56 @@
+package com.paylite.paymentservice.modules.outbox.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paylite.paymentservice.common.exceptions.PayliteException;
+import com.paylite.paymentservice.modules.outbox.dto.PaymentStatusChangedEvent;
+import com.paylite.paymentservice.modules.outbox.repository.OutboxRepository;
+import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxService implements IOutboxService {
+
+    @Value("${app.outbox.enabled:true}")
+    private boolean enabled;
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    // Mandatory: an outbox row written outside the status change's transaction could be published for a change that rolled back
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordPaymentStatusChanges(Collection<String> paymentIds, PaymentStatus status) {
+        if (!enabled || paymentIds.isEmpty()) {
+            return;
+        }
+        Instant occurredAt = Instant.now();
+        List<String> aggregateIds = new ArrayList<>(paymentIds);
+        List<String> payloads = new ArrayList<>(paymentIds.size());
+        for (String paymentId : aggregateIds) {
+            payloads.add(toJson(new PaymentStatusChangedEvent(paymentId, status.name(), occurredAt)));
+        }
+        outboxRepository.appendAll(PaymentStatusChangedEvent.TYPE, aggregateIds, payloads);
+        log.debug("Recorded {} {} events", aggregateIds.size(), PaymentStatusChangedEvent.TYPE);
+    }
+
+    private String toJson(PaymentStatusChangedEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize outbox event for payment: {}", event.getPaymentId(), e);
+            throw PayliteException.internalError("Failed to record payment event");
+        }
+    }
+}
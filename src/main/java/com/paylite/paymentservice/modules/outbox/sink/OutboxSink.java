@@ -0,0 +1,17 @@
+package com.paylite.paymentservice.modules.outbox.sink;
+
+import com.paylite.paymentservice.modules.outbox.dto.OutboxMessage;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A destination for outbox messages. Batches arrive in seq order; a batch that fails is
+ * delivered again, possibly together with later messages, so consumers must tolerate duplicates.
+ */
+public interface OutboxSink {
+
+    String name();
+
+    void deliver(List<OutboxMessage> messages) throws IOException;
+}
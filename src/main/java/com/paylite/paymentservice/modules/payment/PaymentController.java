@@ -1,17 +1,42 @@
 package com.paylite.paymentservice.modules.payment;
 
 
+import com.paylite.paymentservice.modules.payment.dto.BatchCreatePaymentRequest;
+import com.paylite.paymentservice.modules.payment.dto.BatchCreatePaymentResponse;
 import com.paylite.paymentservice.modules.payment.dto.CreatePaymentRequest;
 import com.paylite.paymentservice.modules.payment.dto.CreatePaymentResponse;
+import com.paylite.paymentservice.modules.payment.dto.PaymentPage;
 import com.paylite.paymentservice.modules.payment.dto.PaymentResponse;
+import com.paylite.paymentservice.modules.payment.dto.PaymentSearchCriteria;
+import com.paylite.paymentservice.modules.payment.dto.StoredResponse;
+import com.paylite.paymentservice.modules.payment.enums.ExportFormat;
+import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+import com.paylite.paymentservice.modules.payment.notification.PaymentStatusWaiters;
+import com.paylite.paymentservice.modules.payment.service.IPaymentExportService;
 import com.paylite.paymentservice.modules.payment.service.PaymentService;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 @RestController
@@ -20,25 +45,166 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class PaymentController {
     private final PaymentService paymentService;
+    private final PaymentStatusWaiters paymentStatusWaiters;
+    private final IPaymentExportService paymentExportService;
 
     @PostMapping
-    public ResponseEntity<CreatePaymentResponse> createPayment(
+    @ApiResponse(responseCode = "201", description = "Payment created, or the original response replayed",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = CreatePaymentResponse.class)))
+    public void createPayment(
             @RequestHeader("X-API-Key") String apiKey,
             @RequestHeader("Idempotency-Key") String idempotencyKey,
-            @Valid @RequestBody CreatePaymentRequest request)  {
+            @Valid @RequestBody CreatePaymentRequest request,
+            HttpServletResponse servletResponse) throws IOException {
 
         log.info("Creating payment with idempotency key: {}", idempotencyKey);
-        CreatePaymentResponse response = paymentService.createPayment(request, idempotencyKey);
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        StoredResponse response = paymentService.createPayment(request, idempotencyKey);
+
+        // Pre-encoded at creation time, so fresh and replayed responses skip message conversion entirely
+        servletResponse.setStatus(response.getStatus());
+        servletResponse.setContentType(response.getContentType());
+        servletResponse.setContentLength(response.getBody().length);
+        servletResponse.getOutputStream().write(response.getBody());
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchCreatePaymentResponse> createPayments(
+            @RequestHeader("X-API-Key") String apiKey,
+            @Valid @RequestBody BatchCreatePaymentRequest request) {
+
+        log.info("Creating batch of {} payments", request.getItems().size());
+        BatchCreatePaymentResponse response = paymentService.createPayments(request);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping
+    public ResponseEntity<PaymentPage> listPayments(
+            @RequestHeader("X-API-Key") String apiKey,
+            @RequestParam(required = false) PaymentStatus status,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) String customerEmail,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+
+        PaymentSearchCriteria criteria = PaymentSearchCriteria.builder()
+                .status(status)
+                .currency(currency)
+                .customerEmail(customerEmail)
+                .createdFrom(createdFrom)
+                .createdTo(createdTo)
+                .build();
+        return ResponseEntity.ok(paymentService.listPayments(criteria, cursor, limit));
+    }
+
+    /**
+     * Streams every payment created in [from, to) for reconciliation, gzipped when the client accepts it.
+     */
+    @GetMapping("/export")
+    public void exportPayments(
+            @RequestHeader("X-API-Key") String apiKey,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) PaymentStatus status,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse servletResponse) throws IOException {
+
+        log.info("Exporting payments created between {} and {} as {}", from, to, format);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        paymentExportService.exportPayments(from, to, status, format, () -> {
+            servletResponse.setStatus(HttpStatus.OK.value());
+            servletResponse.setContentType(format.getContentType() + ";charset=UTF-8");
+            servletResponse.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"payments-"
+                    + from.toLocalDate() + "-" + to.toLocalDate() + "." + format.getFileExtension() + "\"");
+            servletResponse.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            OutputStream out = servletResponse.getOutputStream();
+            if (!gzip) {
+                return new BufferedOutputStream(out, 64 * 1024);
+            }
+            servletResponse.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return new GZIPOutputStream(out, 64 * 1024);
+        });
     }
 
     @GetMapping("/{paymentId}")
     public ResponseEntity<PaymentResponse> getPayment(
             @RequestHeader("X-API-Key") String apiKey,
-            @PathVariable String paymentId) {
+            @PathVariable String paymentId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         log.info("Retrieving payment: {}", paymentId);
+        // Served from the payment cache, so an unchanged poll costs no query and no mapping
         PaymentResponse response = paymentService.getPayment(paymentId);
-        return ResponseEntity.ok(response);
+        String eTag = response.getETag();
+        if (matchesETag(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(response);
+    }
+
+    /**
+     * Long-polls until the payment settles, answering with the pending view if the timeout
+     * passes first. The request is parked off-thread while it waits.
+     */
+    @GetMapping("/{paymentId}/wait")
+    public DeferredResult<PaymentResponse> waitForSettlement(
+            @RequestHeader("X-API-Key") String apiKey,
+            @PathVariable String paymentId,
+            @RequestParam(defaultValue = "30") int timeoutSeconds) {
+
+        log.info("Waiting up to {}s for payment {} to settle", timeoutSeconds, paymentId);
+        return paymentStatusWaiters.await(paymentId, Duration.ofSeconds(timeoutSeconds),
+                () -> paymentService.getPayment(paymentId));
+    }
+
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String candidate : acceptEncoding.split(",")) {
+            String[] parts = candidate.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = qualityOf(parts) > 0;
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                return accepted;
+            }
+            if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        // An explicit gzip entry wins; otherwise "*" covers it
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private double qualityOf(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // If-None-Match uses weak comparison, so a W/ prefix still matches
+            if (tag.equals("*") || tag.equals(eTag) || tag.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
\ No newline at end of file
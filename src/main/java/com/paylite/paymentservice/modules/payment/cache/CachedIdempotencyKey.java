@@ -0,0 +1,12 @@
+package com.paylite.paymentservice.modules.payment.cache;
+
+import com.paylite.paymentservice.modules.payment.dto.StoredResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CachedIdempotencyKey {
+    private final String requestHash;
+    private final StoredResponse response;
+}
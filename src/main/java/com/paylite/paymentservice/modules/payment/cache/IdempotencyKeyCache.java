@@ -0,0 +1,47 @@
+package com.paylite.paymentservice.modules.payment.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.paylite.paymentservice.modules.payment.dto.StoredResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded, TTL-evicting near cache of completed idempotency keys so that client
+ * retries can be answered without a trip to the database.
+ * Hit/miss/eviction counters are published as cache.* metrics under the name "idempotency.keys".
+ */
+@Component
+public class IdempotencyKeyCache {
+    public static final String CACHE_NAME = "idempotency.keys";
+
+    private final Cache<String, CachedIdempotencyKey> cache;
+
+    public IdempotencyKeyCache(@Value("${app.idempotency.cache.max-size:10000}") long maxSize,
+                               @Value("${app.idempotency.cache.ttl:5m}") Duration ttl,
+                               MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public Optional<CachedIdempotencyKey> get(String idempotencyKey) {
+        return Optional.ofNullable(cache.getIfPresent(idempotencyKey));
+    }
+
+    public void put(String idempotencyKey, String requestHash, StoredResponse response) {
+        cache.put(idempotencyKey, new CachedIdempotencyKey(requestHash, response));
+    }
+
+    public void invalidate(String idempotencyKey) {
+        cache.invalidate(idempotencyKey);
+    }
+}
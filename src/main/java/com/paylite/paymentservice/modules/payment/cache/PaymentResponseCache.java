@@ -0,0 +1,68 @@
+package com.paylite.paymentservice.modules.payment.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.paylite.paymentservice.modules.payment.dto.PaymentResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of payment views for status polling.
+ * Concurrent misses on the same payment ID share a single load; load latency and
+ * hit/miss counters are published as cache.* metrics under the name "payments".
+ */
+@Component
+public class PaymentResponseCache {
+    public static final String CACHE_NAME = "payments";
+
+    private final Cache<String, PaymentResponse> cache;
+
+    public PaymentResponseCache(@Value("${app.payment.cache.max-size:50000}") long maxSize,
+                                @Value("${app.payment.cache.ttl:30s}") Duration ttl,
+                                MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", CACHE_NAME)
+                .description("Share of payment lookups answered from the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached view, or runs the loader once for all concurrent callers.
+     * An empty load is not cached.
+     */
+    public Optional<PaymentResponse> get(String paymentId, Function<String, PaymentResponse> loader) {
+        return Optional.ofNullable(cache.get(paymentId, loader));
+    }
+
+    /**
+     * Evicts now and again once the surrounding transaction commits, so a load that raced
+     * the update cannot leave the pre-commit status behind.
+     */
+    public void invalidateAfterCommit(Collection<String> paymentIds) {
+        cache.invalidateAll(paymentIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidateAll(paymentIds);
+                }
+            });
+        }
+    }
+}
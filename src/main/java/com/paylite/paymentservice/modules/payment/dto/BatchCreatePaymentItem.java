@@ -0,0 +1,20 @@
+package com.paylite.paymentservice.modules.payment.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchCreatePaymentItem {
+    @NotBlank(message = "Idempotency key is required")
+    private String idempotencyKey;
+
+    @Valid
+    @NotNull(message = "Payment is required")
+    private CreatePaymentRequest payment;
+}
@@ -0,0 +1,19 @@
+package com.paylite.paymentservice.modules.payment.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchCreatePaymentRequest {
+    @NotEmpty(message = "At least one payment is required")
+    @Size(max = 1000, message = "A batch can contain at most 1000 payments")
+    private List<@Valid BatchCreatePaymentItem> items;
+}
@@ -0,0 +1,17 @@
+package com.paylite.paymentservice.modules.payment.dto;
+
+import com.paylite.paymentservice.modules.payment.enums.BatchItemOutcome;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPaymentResult {
+    private String idempotencyKey;
+    private BatchItemOutcome outcome;
+    private String paymentId;
+    private String status;
+    private String message;
+}
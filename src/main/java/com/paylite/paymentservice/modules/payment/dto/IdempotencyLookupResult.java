@@ -0,0 +1,35 @@
+package com.paylite.paymentservice.modules.payment.dto;
+
+import com.paylite.paymentservice.modules.payment.enums.IdempotencyLookupStatus;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of a single idempotency key lookup.
+ * ABSENT - key never seen, MATCH - same key and payload (cachedResponse is set),
+ * CONFLICT - same key with a different payload.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class IdempotencyLookupResult {
+    private static final IdempotencyLookupResult ABSENT =
+            new IdempotencyLookupResult(IdempotencyLookupStatus.ABSENT, null);
+    private static final IdempotencyLookupResult CONFLICT =
+            new IdempotencyLookupResult(IdempotencyLookupStatus.CONFLICT, null);
+
+    private final IdempotencyLookupStatus status;
+    private final StoredResponse cachedResponse;
+
+    public static IdempotencyLookupResult absent() {
+        return ABSENT;
+    }
+
+    public static IdempotencyLookupResult match(StoredResponse cachedResponse) {
+        return new IdempotencyLookupResult(IdempotencyLookupStatus.MATCH, cachedResponse);
+    }
+
+    public static IdempotencyLookupResult conflict() {
+        return CONFLICT;
+    }
+}
@@ -0,0 +1,45 @@
+package com.paylite.paymentservice.modules.payment.dto;
+
+import com.paylite.paymentservice.common.exceptions.PayliteException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position after the last payment of a page, in (created_at, id) order. Clients see it as an
+ * opaque token, so its encoding can change without breaking them.
+ */
+@Getter
+@AllArgsConstructor
+public class PaymentCursor {
+    private final LocalDateTime createdAt;
+    private final UUID id;
+
+    public static PaymentCursor after(PaymentSummary payment) {
+        return new PaymentCursor(payment.getCreatedAt(), payment.getId());
+    }
+
+    public static PaymentCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf('|');
+            if (separator < 0) {
+                throw PayliteException.badRequest("Invalid cursor");
+            }
+            return new PaymentCursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                    UUID.fromString(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw PayliteException.badRequest("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
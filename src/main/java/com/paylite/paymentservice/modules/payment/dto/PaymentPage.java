@@ -0,0 +1,17 @@
+package com.paylite.paymentservice.modules.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentPage {
+    private List<PaymentSummary> payments;
+
+    // Pass back as ?cursor= for the next page; null on the last page
+    private String nextCursor;
+}
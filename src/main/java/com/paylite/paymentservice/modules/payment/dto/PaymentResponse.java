@@ -1,9 +1,12 @@
 package com.paylite.paymentservice.modules.payment.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 @Data
 @NoArgsConstructor
@@ -14,4 +17,20 @@ public class PaymentResponse {
     private String currency;
     private String reference;
     private String status;
-}
\ No newline at end of file
+
+    // Not part of the body; only used to version the representation
+    @JsonIgnore
+    private LocalDateTime updatedAt;
+
+    /**
+     * Strong validator for this representation. Status is the only mutable field of a
+     * payment, and every status change bumps updatedAt.
+     */
+    @JsonIgnore
+    public String getETag() {
+        String version = updatedAt == null
+                ? "0"
+                : Long.toHexString(updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli());
+        return "\"" + status + "-" + version + "\"";
+    }
+}
@@ -0,0 +1,21 @@
+package com.paylite.paymentservice.modules.payment.dto;
+
+import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters for a payment listing; null fields do not filter. The created-at range is
+ * inclusive of {@code createdFrom} and exclusive of {@code createdTo}.
+ */
+@Getter
+@Builder
+public class PaymentSearchCriteria {
+    private final PaymentStatus status;
+    private final String currency;
+    private final String customerEmail;
+    private final LocalDateTime createdFrom;
+    private final LocalDateTime createdTo;
+}
@@ -0,0 +1,30 @@
+package com.paylite.paymentservice.modules.payment.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One row of a payment listing.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentSummary {
+    // Internal key, only used as the listing tie-breaker
+    @JsonIgnore
+    private UUID id;
+    private String paymentId;
+    private BigDecimal amount;
+    private String currency;
+    private String customerEmail;
+    private String reference;
+    private String status;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
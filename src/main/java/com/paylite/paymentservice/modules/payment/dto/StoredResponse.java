@@ -0,0 +1,43 @@
+package com.paylite.paymentservice.modules.payment.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A fully encoded HTTP response kept for idempotent replay, written back to the client byte for byte.
+ * Stored as [status: 2 bytes][content type length: 1 byte][content type: ASCII][body].
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class StoredResponse {
+    private final int status;
+    private final String contentType;
+    private final byte[] body;
+
+    public static StoredResponse json(int status, byte[] body) {
+        return new StoredResponse(status, MediaType.APPLICATION_JSON_VALUE, body);
+    }
+
+    public byte[] encode() {
+        byte[] type = contentType.getBytes(StandardCharsets.US_ASCII);
+        byte[] encoded = new byte[3 + type.length + body.length];
+        encoded[0] = (byte) (status >>> 8);
+        encoded[1] = (byte) status;
+        encoded[2] = (byte) type.length;
+        System.arraycopy(type, 0, encoded, 3, type.length);
+        System.arraycopy(body, 0, encoded, 3 + type.length, body.length);
+        return encoded;
+    }
+
+    public static StoredResponse decode(byte[] encoded) {
+        int status = ((encoded[0] & 0xFF) << 8) | (encoded[1] & 0xFF);
+        int typeLength = encoded[2] & 0xFF;
+        String contentType = new String(encoded, 3, typeLength, StandardCharsets.US_ASCII);
+        return new StoredResponse(status, contentType, Arrays.copyOfRange(encoded, 3 + typeLength, encoded.length));
+    }
+}
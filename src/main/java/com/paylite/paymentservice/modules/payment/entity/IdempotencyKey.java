@@ -21,7 +21,11 @@ public class IdempotencyKey extends BaseEntityAudit implements Serializable {
     @Column(name = "request_hash", nullable = false)
     private String requestHash;
 
+    // Legacy JSON body, only present on rows written before response_bytes existed
     @Column(name = "response_body", columnDefinition = "TEXT")
     private String responseBody;
 
+    @Column(name = "response_bytes", columnDefinition = "BLOB")
+    private byte[] responseBytes;
+
 }
\ No newline at end of file
@@ -1,5 +1,31 @@
 package com.paylite.paymentservice.modules.payment.enums;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum PaymentStatus {
-    PENDING, SUCCEEDED, FAILED
-}
\ No newline at end of file
+    PENDING, SUCCEEDED, FAILED;
+
+    /**
+     * The statuses a payment may move to this one from. Only PENDING payments settle;
+     * SUCCEEDED and FAILED are terminal, so a late webhook cannot flip them.
+     */
+    public Set<PaymentStatus> allowedSources() {
+        return switch (this) {
+            case PENDING -> EnumSet.noneOf(PaymentStatus.class);
+            case SUCCEEDED, FAILED -> EnumSet.of(PENDING);
+        };
+    }
+
+    /**
+     * True when no transition leaves this status.
+     */
+    public boolean isTerminal() {
+        for (PaymentStatus target : values()) {
+            if (target.allowedSources().contains(this)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,5 @@
+package com.paylite.paymentservice.modules.payment.enums;
+
+public enum StatusTransitionOutcome {
+    APPLIED, UNCHANGED, REJECTED
+}
@@ -0,0 +1,91 @@
+package com.paylite.paymentservice.modules.payment.export;
+
+import com.paylite.paymentservice.modules.payment.dto.PaymentSummary;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RFC 4180 CSV with a header row. Fields are quoted only when they contain a delimiter,
+ * quote or line break. Client-supplied text that a spreadsheet would evaluate as a formula is
+ * prefixed with a single quote; the amount is written as a plain number.
+ */
+class CsvPaymentExportWriter implements PaymentExportWriter {
+    static final String HEADER = "payment_id,amount,currency,customer_email,reference,status,created_at,updated_at";
+
+    private final Writer writer;
+    private boolean headerWritten;
+
+    CsvPaymentExportWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+    }
+
+    @Override
+    public void write(PaymentSummary payment) throws IOException {
+        writeHeaderOnce();
+        writeField(payment.getPaymentId());
+        writer.write(',');
+        writeField(payment.getAmount() == null ? null : payment.getAmount().toPlainString());
+        writer.write(',');
+        writeTextField(payment.getCurrency());
+        writer.write(',');
+        writeTextField(payment.getCustomerEmail());
+        writer.write(',');
+        writeTextField(payment.getReference());
+        writer.write(',');
+        writeField(payment.getStatus());
+        writer.write(',');
+        writeField(payment.getCreatedAt() == null ? null : payment.getCreatedAt().toString());
+        writer.write(',');
+        writeField(payment.getUpdatedAt() == null ? null : payment.getUpdatedAt().toString());
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writeHeaderOnce();
+        writer.flush();
+    }
+
+    private void writeHeaderOnce() throws IOException {
+        if (!headerWritten) {
+            writer.write(HEADER);
+            writer.write("\r\n");
+            headerWritten = true;
+        }
+    }
+
+    private void writeTextField(String value) throws IOException {
+        writeField(isFormulaLike(value) ? "'" + value : value);
+    }
+
+    private static boolean isFormulaLike(String value) {
+        if (value == null || value.isEmpty()) {
+            return false;
+        }
+        char first = value.charAt(0);
+        return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,34 @@
+package com.paylite.paymentservice.modules.payment.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.paylite.paymentservice.modules.payment.dto.PaymentSummary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * One JSON object per line, written through a single generator so no per-row buffers are allocated.
+ */
+class NdjsonPaymentExportWriter implements PaymentExportWriter {
+    private final JsonGenerator generator;
+    private final ObjectWriter rowWriter;
+
+    NdjsonPaymentExportWriter(OutputStream out, ObjectMapper objectMapper) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(out);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.rowWriter = objectMapper.writerFor(PaymentSummary.class);
+    }
+
+    @Override
+    public void write(PaymentSummary payment) throws IOException {
+        rowWriter.writeValue(generator, payment);
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        generator.flush();
+    }
+}
@@ -0,0 +1,28 @@
+package com.paylite.paymentservice.modules.payment.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paylite.paymentservice.modules.payment.dto.PaymentSummary;
+import com.paylite.paymentservice.modules.payment.enums.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes exported payments to a stream one row at a time.
+ */
+public interface PaymentExportWriter {
+
+    void write(PaymentSummary payment) throws IOException;
+
+    /**
+     * Flushes buffered rows; the underlying stream is left open.
+     */
+    void finish() throws IOException;
+
+    static PaymentExportWriter create(ExportFormat format, OutputStream out, ObjectMapper objectMapper) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonPaymentExportWriter(out, objectMapper);
+            case CSV -> new CsvPaymentExportWriter(out);
+        };
+    }
+}
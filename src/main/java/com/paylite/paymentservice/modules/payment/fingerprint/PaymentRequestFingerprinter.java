@@ -0,0 +1,109 @@
+package com.paylite.paymentservice.modules.payment.fingerprint;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paylite.paymentservice.common.exceptions.PayliteException;
+import com.paylite.paymentservice.common.utilities.HashUtility;
+import com.paylite.paymentservice.modules.payment.dto.CreatePaymentRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Computes versioned fingerprints of create-payment requests for idempotency checks.
+ * A fingerprint is "<version>$<Base64 SHA-256>"; hashes stored before versioning have no prefix.
+ */
+@Component
+@RequiredArgsConstructor
+public class PaymentRequestFingerprinter {
+    public static final String CURRENT_VERSION = "v1";
+    static final String LEGACY_VERSION = "";
+    private static final char VERSION_SEPARATOR = '$';
+
+    private final HashUtility hashUtility;
+    private final ObjectMapper objectMapper;
+
+    public RequestFingerprint fingerprint(CreatePaymentRequest request) {
+        return new RequestFingerprint(canonicalV1(request), request, this);
+    }
+
+    /**
+     * Recomputes the fingerprint of a request under an older version, so keys stored
+     * before a change to the canonical form still match their retries.
+     */
+    Optional<String> fingerprint(CreatePaymentRequest request, String version) {
+        return switch (version) {
+            case CURRENT_VERSION -> Optional.of(canonicalV1(request));
+            case LEGACY_VERSION -> Optional.of(legacyJson(request));
+            default -> Optional.empty();
+        };
+    }
+
+    static String versionOf(String fingerprint) {
+        int separator = fingerprint.indexOf(VERSION_SEPARATOR);
+        return separator < 0 ? LEGACY_VERSION : fingerprint.substring(0, separator);
+    }
+
+    /**
+     * v1: amount with trailing zeros stripped, currency upper-cased, email lower-cased, reference as sent;
+     * text fields are trimmed. Each field is written as a tag, a length and its UTF-16 code units
+     * straight into the digest, so no intermediate document is built.
+     */
+    private String canonicalV1(CreatePaymentRequest request) {
+        HashUtility.Sha256Sink sink = hashUtility.newSha256Sink();
+        BigDecimal amount = request.getAmount();
+        writeField(sink, 'a', amount == null ? null : amount.stripTrailingZeros().toPlainString(), CaseMode.AS_IS);
+        writeField(sink, 'c', request.getCurrency(), CaseMode.UPPER);
+        writeField(sink, 'e', request.getCustomerEmail(), CaseMode.LOWER);
+        writeField(sink, 'r', request.getReference(), CaseMode.AS_IS);
+        return CURRENT_VERSION + VERSION_SEPARATOR + sink.digestBase64();
+    }
+
+    private String legacyJson(CreatePaymentRequest request) {
+        // The pre-v1 form: SHA-256 of the request serialized by Jackson
+        HashUtility.Sha256Sink sink = hashUtility.newSha256Sink();
+        try {
+            objectMapper.writeValue(sink, request);
+            return sink.digestBase64();
+        } catch (IOException e) {
+            throw PayliteException.internalError(e.getMessage());
+        }
+    }
+
+    private void writeField(HashUtility.Sha256Sink sink, char tag, String value, CaseMode caseMode) {
+        sink.write(tag);
+        if (value == null) {
+            writeInt(sink, -1);
+            return;
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && Character.isWhitespace(value.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(value.charAt(end - 1))) {
+            end--;
+        }
+        writeInt(sink, end - start);
+        for (int i = start; i < end; i++) {
+            char c = switch (caseMode) {
+                case UPPER -> Character.toUpperCase(value.charAt(i));
+                case LOWER -> Character.toLowerCase(value.charAt(i));
+                case AS_IS -> value.charAt(i);
+            };
+            sink.write(c >>> 8);
+            sink.write(c);
+        }
+    }
+
+    private void writeInt(HashUtility.Sha256Sink sink, int value) {
+        sink.write(value >>> 24);
+        sink.write(value >>> 16);
+        sink.write(value >>> 8);
+        sink.write(value);
+    }
+
+    private enum CaseMode { AS_IS, UPPER, LOWER }
+}
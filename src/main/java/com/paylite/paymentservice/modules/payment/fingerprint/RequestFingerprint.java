@@ -0,0 +1,48 @@
+package com.paylite.paymentservice.modules.payment.fingerprint;
+
+import com.paylite.paymentservice.modules.payment.dto.CreatePaymentRequest;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * The current-version fingerprint of a request, able to re-derive older versions
+ * when it is compared with a hash stored under one of them.
+ */
+@Getter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class RequestFingerprint {
+    @EqualsAndHashCode.Include
+    private final String value;
+    @Getter(AccessLevel.NONE)
+    private final CreatePaymentRequest request;
+    @Getter(AccessLevel.NONE)
+    private final PaymentRequestFingerprinter fingerprinter;
+
+    /**
+     * A fingerprint known only by its value; it matches stored hashes of the same version only.
+     */
+    public static RequestFingerprint of(String value) {
+        return new RequestFingerprint(value, null, null);
+    }
+
+    public boolean matches(String storedHash) {
+        if (value.equals(storedHash)) {
+            return true;
+        }
+        String storedVersion = PaymentRequestFingerprinter.versionOf(storedHash);
+        if (request == null || storedVersion.equals(PaymentRequestFingerprinter.versionOf(value))) {
+            return false;
+        }
+        return fingerprinter.fingerprint(request, storedVersion)
+                .map(storedHash::equals)
+                .orElse(false);
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -0,0 +1,46 @@
+package com.paylite.paymentservice.modules.payment.mapper;
+
+import com.paylite.paymentservice.modules.payment.dto.CreatePaymentRequest;
+import com.paylite.paymentservice.modules.payment.dto.CreatePaymentResponse;
+import com.paylite.paymentservice.modules.payment.dto.PaymentResponse;
+import com.paylite.paymentservice.modules.payment.entity.Payment;
+import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+
+/**
+ * Hand-written conversions between payment entities and DTOs.
+ * Plain field copies, so there is no reflective type-map lookup on the request path.
+ */
+public final class PaymentMapper {
+
+    private PaymentMapper() {
+    }
+
+    public static Payment toPayment(String paymentId, CreatePaymentRequest request) {
+        Payment payment = new Payment();
+        payment.setPaymentId(paymentId);
+        payment.setAmount(request.getAmount());
+        payment.setCurrency(request.getCurrency());
+        payment.setCustomerEmail(request.getCustomerEmail());
+        payment.setReference(request.getReference());
+        payment.setStatus(PaymentStatus.PENDING);
+        return payment;
+    }
+
+    public static PaymentResponse toPaymentResponse(Payment payment) {
+        return new PaymentResponse(
+                payment.getPaymentId(),
+                payment.getAmount(),
+                payment.getCurrency(),
+                payment.getReference(),
+                payment.getStatus() == null ? null : payment.getStatus().name(),
+                payment.getUpdatedAt()
+        );
+    }
+
+    public static CreatePaymentResponse toCreatePaymentResponse(Payment payment) {
+        return new CreatePaymentResponse(
+                payment.getPaymentId(),
+                payment.getStatus() == null ? null : payment.getStatus().name()
+        );
+    }
+}
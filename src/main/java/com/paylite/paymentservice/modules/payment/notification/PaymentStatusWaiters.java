@@ -0,0 +1,211 @@
+package com.paylite.paymentservice.modules.payment.notification;
+
+import com.paylite.paymentservice.common.exceptions.PayliteException;
+import com.paylite.paymentservice.modules.payment.dto.PaymentResponse;
+import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * In-process registry of requests parked until a payment settles. A waiting request holds
+ * no thread and no connection, only a DeferredResult and the payment view it already read;
+ * a committed terminal status completes every waiter for that payment without a query.
+ */
+@Slf4j
+@Component
+public class PaymentStatusWaiters {
+    private static final Duration MIN_TIMEOUT = Duration.ofSeconds(1);
+
+    private final int maxWaiters;
+    private final int maxWaitersPerPayment;
+    private final Duration maxTimeout;
+
+    private final Map<String, Set<Waiter>> waitersByPaymentId = new ConcurrentHashMap<>();
+    private final AtomicInteger waiterCount = new AtomicInteger();
+    private final Counter settledCounter;
+    private final Counter timedOutCounter;
+    private final Counter rejectedCounter;
+
+    public PaymentStatusWaiters(@Value("${app.payment.wait.max-waiters:10000}") int maxWaiters,
+                                @Value("${app.payment.wait.max-waiters-per-payment:100}") int maxWaitersPerPayment,
+                                @Value("${app.payment.wait.max-timeout:60s}") Duration maxTimeout,
+                                MeterRegistry meterRegistry) {
+        this.maxWaiters = maxWaiters;
+        this.maxWaitersPerPayment = maxWaitersPerPayment;
+        this.maxTimeout = maxTimeout;
+        this.settledCounter = Counter.builder("payment.wait.completed")
+                .tag("outcome", "settled")
+                .description("Waiting requests answered with a terminal status")
+                .register(meterRegistry);
+        this.timedOutCounter = Counter.builder("payment.wait.completed")
+                .tag("outcome", "timeout")
+                .description("Waiting requests answered with the still-pending status at their timeout")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("payment.wait.rejected")
+                .description("Wait requests refused because too many clients were already waiting")
+                .register(meterRegistry);
+        Gauge.builder("payment.wait.waiters", waiterCount, AtomicInteger::get)
+                .description("Requests currently parked waiting for a payment to settle")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Parks until the payment reaches a terminal status or the timeout passes, whichever is first.
+     * Answers at once when the payment has already settled.
+     *
+     * @param loader reads the current view; called after registering so a change committed
+     *               in between still wakes this waiter
+     */
+    public DeferredResult<PaymentResponse> await(String paymentId, Duration timeout, Supplier<PaymentResponse> loader) {
+        Duration bounded = timeout.compareTo(maxTimeout) > 0 ? maxTimeout : timeout;
+        if (bounded.compareTo(MIN_TIMEOUT) < 0) {
+            bounded = MIN_TIMEOUT;
+        }
+        Waiter waiter = new Waiter(bounded);
+        register(paymentId, waiter);
+
+        PaymentResponse current;
+        try {
+            current = loader.get();
+        } catch (RuntimeException e) {
+            unregister(paymentId, waiter);
+            throw e;
+        }
+        waiter.start(current);
+        return waiter.result;
+    }
+
+    /**
+     * Wakes the waiters of these payments once the surrounding transaction commits,
+     * or right away when there is none.
+     */
+    public void publishAfterCommit(Collection<String> paymentIds, PaymentStatus status, LocalDateTime updatedAt) {
+        if (!status.isTerminal() || waiterCount.get() == 0) {
+            return;
+        }
+        List<String> ids = List.copyOf(paymentIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(ids, status, updatedAt);
+                }
+            });
+        } else {
+            publish(ids, status, updatedAt);
+        }
+    }
+
+    public int size() {
+        return waiterCount.get();
+    }
+
+    private void publish(List<String> paymentIds, PaymentStatus status, LocalDateTime updatedAt) {
+        for (String paymentId : paymentIds) {
+            Set<Waiter> waiters = waitersByPaymentId.get(paymentId);
+            if (waiters != null) {
+                waiters.forEach(waiter -> waiter.settle(status, updatedAt));
+            }
+        }
+    }
+
+    private void register(String paymentId, Waiter waiter) {
+        if (waiterCount.incrementAndGet() > maxWaiters) {
+            waiterCount.decrementAndGet();
+            reject(paymentId);
+        }
+        boolean[] added = new boolean[1];
+        waitersByPaymentId.compute(paymentId, (id, waiters) -> {
+            Set<Waiter> set = waiters != null ? waiters : ConcurrentHashMap.newKeySet();
+            if (set.size() < maxWaitersPerPayment) {
+                added[0] = set.add(waiter);
+            }
+            return set.isEmpty() ? null : set;
+        });
+        if (!added[0]) {
+            waiterCount.decrementAndGet();
+            reject(paymentId);
+        }
+        waiter.result.onCompletion(() -> unregister(paymentId, waiter));
+    }
+
+    private void unregister(String paymentId, Waiter waiter) {
+        boolean[] removed = new boolean[1];
+        waitersByPaymentId.computeIfPresent(paymentId, (id, waiters) -> {
+            removed[0] = waiters.remove(waiter);
+            return waiters.isEmpty() ? null : waiters;
+        });
+        if (removed[0]) {
+            waiterCount.decrementAndGet();
+        }
+    }
+
+    private void reject(String paymentId) {
+        rejectedCounter.increment();
+        log.warn("Too many clients waiting, rejecting wait for payment {}", paymentId);
+        throw PayliteException.serviceUnavailable("Too many clients are waiting, poll the payment instead");
+    }
+
+    private final class Waiter {
+        private final DeferredResult<PaymentResponse> result;
+        // Guarded by this: the view read at registration, and a settlement that arrived before it
+        private PaymentResponse current;
+        private PaymentStatus settledStatus;
+        private LocalDateTime settledAt;
+
+        Waiter(Duration timeout) {
+            this.result = new DeferredResult<>(timeout.toMillis(), this::onTimeout);
+        }
+
+        synchronized void start(PaymentResponse current) {
+            this.current = current;
+            if (PaymentStatus.valueOf(current.getStatus()).isTerminal()) {
+                complete(current);
+            } else if (settledStatus != null) {
+                complete(settledView());
+            }
+        }
+
+        synchronized void settle(PaymentStatus status, LocalDateTime updatedAt) {
+            settledStatus = status;
+            settledAt = updatedAt;
+            if (current != null) {
+                complete(settledView());
+            }
+        }
+
+        private synchronized PaymentResponse onTimeout() {
+            timedOutCounter.increment();
+            return current;
+        }
+
+        private void complete(PaymentResponse response) {
+            if (result.setResult(response)) {
+                settledCounter.increment();
+            }
+        }
+
+        // Only the status and its timestamp change when a payment settles
+        private PaymentResponse settledView() {
+            return new PaymentResponse(current.getPaymentId(), current.getAmount(), current.getCurrency(),
+                    current.getReference(), settledStatus.name(), settledAt);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.paylite.paymentservice.modules.payment.repository;
+
+import com.paylite.paymentservice.modules.payment.entity.IdempotencyKey;
+
+import java.util.List;
+
+/**
+ * Plain JDBC inserts for the append-only idempotency_keys table. Keys are written once and only
+ * ever deleted, so they skip the persistence context and its dirty checking.
+ */
+public interface IdempotencyKeyAppendRepository {
+
+    /**
+     * Inserts the key immediately; a key already reserved fails with a DuplicateKeyException.
+     */
+    void insert(IdempotencyKey idempotencyKey);
+
+    /**
+     * Inserts all keys as one JDBC batch; any reserved key fails the batch with a DuplicateKeyException.
+     */
+    void insertAll(List<IdempotencyKey> idempotencyKeys);
+}
@@ -0,0 +1,46 @@
+package com.paylite.paymentservice.modules.payment.repository;
+
+import com.paylite.paymentservice.common.utilities.TimeOrderedUuidGenerator;
+import com.paylite.paymentservice.modules.payment.entity.IdempotencyKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+class IdempotencyKeyAppendRepositoryImpl implements IdempotencyKeyAppendRepository {
+    private static final String INSERT_SQL = "INSERT INTO idempotency_keys "
+            + "(id, `key`, request_hash, response_body, response_bytes, is_deleted, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, FALSE, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insert(IdempotencyKey idempotencyKey) {
+        jdbcTemplate.update(INSERT_SQL, parameters(idempotencyKey, LocalDateTime.now()));
+    }
+
+    @Override
+    public void insertAll(List<IdempotencyKey> idempotencyKeys) {
+        if (idempotencyKeys.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_SQL, idempotencyKeys.stream()
+                .map(idempotencyKey -> parameters(idempotencyKey, now))
+                .toList());
+    }
+
+    private Object[] parameters(IdempotencyKey idempotencyKey, LocalDateTime now) {
+        return new Object[]{
+                TimeOrderedUuidGenerator.toBytes(TimeOrderedUuidGenerator.next()),
+                idempotencyKey.getKey(),
+                idempotencyKey.getRequestHash(),
+                idempotencyKey.getResponseBody(),
+                idempotencyKey.getResponseBytes(),
+                now,
+                now
+        };
+    }
+}
@@ -2,12 +2,36 @@ package com.paylite.paymentservice.modules.payment.repository;
 
 import com.paylite.paymentservice.modules.payment.entity.IdempotencyKey;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, UUID> {
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, UUID>, IdempotencyKeyAppendRepository {
     Optional<IdempotencyKey> findByKey(String key);
-    boolean existsByKeyAndRequestHash(String key, String requestHash);
-    boolean existsByKeyAndRequestHashNot(String key, String requestHash);
-}
\ No newline at end of file
+    List<IdempotencyKey> findByKeyIn(Collection<String> keys);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.key = :key AND k.createdAt < :cutoff")
+    int deleteExpiredByKey(@Param("key") String key, @Param("cutoff") LocalDateTime cutoff);
+
+    // Small, index-ordered batches keep each purge transaction and its row locks short
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE created_at < :cutoff ORDER BY created_at LIMIT :batchSize",
+            nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
+
+    // InnoDB estimate; an exact COUNT(*) would scan the whole table
+    @Query(value = "SELECT TABLE_ROWS FROM information_schema.TABLES " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'idempotency_keys'",
+            nativeQuery = true)
+    Long estimateRowCount();
+}
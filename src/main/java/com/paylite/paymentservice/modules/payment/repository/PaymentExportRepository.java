@@ -0,0 +1,59 @@
+package com.paylite.paymentservice.modules.payment.repository;
+
+import com.paylite.paymentservice.modules.payment.dto.PaymentSummary;
+import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Reads payments for export through a forward-only, read-only cursor, handing each row on as it
+ * arrives. Nothing is collected, so memory stays flat however many rows the range holds.
+ */
+@Repository
+public class PaymentExportRepository {
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    public PaymentExportRepository(JdbcTemplate jdbcTemplate,
+                                   @Value("${app.payment.export.fetch-size:-2147483648}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Calls {@code action} for each payment created in [from, to), optionally of one status,
+     * in (created_at, id) order. The rows come from one statement, so they are a consistent snapshot.
+     *
+     * @return the number of rows read
+     */
+    public long forEachCreatedBetween(LocalDateTime from, LocalDateTime to, PaymentStatus status,
+                                      Consumer<PaymentSummary> action) {
+        String sql = "SELECT " + PaymentSummaryRowMapper.COLUMNS + " FROM payments WHERE "
+                + (status != null ? "status = ? AND " : "")
+                + "created_at >= ? AND created_at < ? ORDER BY created_at, id";
+        long[] rows = new long[1];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // Connector/J streams row by row only for Integer.MIN_VALUE; other values are a plain hint
+            statement.setFetchSize(fetchSize);
+            int index = 1;
+            if (status != null) {
+                statement.setString(index++, status.name());
+            }
+            statement.setObject(index++, from);
+            statement.setObject(index, to);
+            return statement;
+        }, rs -> {
+            action.accept(PaymentSummaryRowMapper.INSTANCE.mapRow(rs, (int) rows[0]));
+            rows[0]++;
+        });
+        return rows[0];
+    }
+}
@@ -3,17 +3,53 @@
 package com.paylite.paymentservice.modules.payment.repository;
 
 import com.paylite.paymentservice.modules.payment.entity.Payment;
+import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface PaymentRepository extends JpaRepository<Payment, UUID> {
+public interface PaymentRepository extends JpaRepository<Payment, UUID>, PaymentSearchRepository {
     Optional<Payment> findByPaymentId(String paymentId);
-    boolean existsByPaymentId(String paymentId);
 
-    @Query("SELECT p FROM Payment p WHERE p.paymentId = :paymentId")
-    Optional<Payment> findPaymentByPaymentId(@Param("paymentId") String paymentId);
-}
\ No newline at end of file
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.paymentId AS paymentId, p.status AS status FROM Payment p WHERE p.paymentId IN :paymentIds")
+    List<PaymentStatusView> findStatusesForUpdate(@Param("paymentIds") Collection<String> paymentIds);
+
+    @Query("SELECT p.status FROM Payment p WHERE p.paymentId = :paymentId")
+    Optional<PaymentStatus> findStatusByPaymentId(@Param("paymentId") String paymentId);
+
+    /**
+     * Moves one payment to {@code status} only if it is currently in one of {@code sources};
+     * returns 0 when the payment is missing or in any other status.
+     */
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :status, p.updatedAt = :updatedAt "
+            + "WHERE p.paymentId = :paymentId AND p.status IN :sources")
+    int transitionStatus(@Param("paymentId") String paymentId,
+                         @Param("sources") Collection<PaymentStatus> sources,
+                         @Param("status") PaymentStatus status,
+                         @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :status, p.updatedAt = :updatedAt "
+            + "WHERE p.paymentId IN :paymentIds AND p.status IN :sources")
+    int updateStatusByPaymentIds(@Param("paymentIds") Collection<String> paymentIds,
+                                 @Param("sources") Collection<PaymentStatus> sources,
+                                 @Param("status") PaymentStatus status,
+                                 @Param("updatedAt") LocalDateTime updatedAt);
+
+    interface PaymentStatusView {
+        String getPaymentId();
+
+        PaymentStatus getStatus();
+    }
+}
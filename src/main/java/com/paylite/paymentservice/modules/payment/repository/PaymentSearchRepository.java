@@ -0,0 +1,19 @@
+package com.paylite.paymentservice.modules.payment.repository;
+
+import com.paylite.paymentservice.modules.payment.dto.PaymentCursor;
+import com.paylite.paymentservice.modules.payment.dto.PaymentSearchCriteria;
+import com.paylite.paymentservice.modules.payment.dto.PaymentSummary;
+
+import java.util.List;
+
+/**
+ * Filtered payment listings, newest first, paged by keyset instead of OFFSET so a deep page
+ * costs the same index range scan as the first one.
+ */
+public interface PaymentSearchRepository {
+
+    /**
+     * @param after the last payment of the previous page, or null for the first page
+     */
+    List<PaymentSummary> search(PaymentSearchCriteria criteria, PaymentCursor after, int limit);
+}
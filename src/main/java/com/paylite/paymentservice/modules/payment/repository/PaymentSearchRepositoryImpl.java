@@ -0,0 +1,55 @@
+package com.paylite.paymentservice.modules.payment.repository;
+
+import com.paylite.paymentservice.common.utilities.TimeOrderedUuidGenerator;
+import com.paylite.paymentservice.modules.payment.dto.PaymentCursor;
+import com.paylite.paymentservice.modules.payment.dto.PaymentSearchCriteria;
+import com.paylite.paymentservice.modules.payment.dto.PaymentSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+class PaymentSearchRepositoryImpl implements PaymentSearchRepository {
+    private static final String SELECT_SQL = "SELECT " + PaymentSummaryRowMapper.COLUMNS + " FROM payments WHERE 1 = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<PaymentSummary> search(PaymentSearchCriteria criteria, PaymentCursor after, int limit) {
+        // Equality filters lead, so each matches the prefix of one of the (filter, created_at, id) indexes
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> args = new ArrayList<>();
+        if (criteria.getStatus() != null) {
+            sql.append(" AND status = ?");
+            args.add(criteria.getStatus().name());
+        }
+        if (criteria.getCurrency() != null) {
+            sql.append(" AND currency = ?");
+            args.add(criteria.getCurrency());
+        }
+        if (criteria.getCustomerEmail() != null) {
+            sql.append(" AND customer_email = ?");
+            args.add(criteria.getCustomerEmail());
+        }
+        if (criteria.getCreatedFrom() != null) {
+            sql.append(" AND created_at >= ?");
+            args.add(criteria.getCreatedFrom());
+        }
+        if (criteria.getCreatedTo() != null) {
+            sql.append(" AND created_at < ?");
+            args.add(criteria.getCreatedTo());
+        }
+        if (after != null) {
+            // The first term bounds the index range; the second only breaks created_at ties by id
+            sql.append(" AND created_at <= ? AND (created_at < ? OR id < ?)");
+            args.add(after.getCreatedAt());
+            args.add(after.getCreatedAt());
+            args.add(TimeOrderedUuidGenerator.toBytes(after.getId()));
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), PaymentSummaryRowMapper.INSTANCE, args.toArray());
+    }
+}
@@ -0,0 +1,39 @@
+package com.paylite.paymentservice.modules.payment.repository;
+
+import com.paylite.paymentservice.common.utilities.TimeOrderedUuidGenerator;
+import com.paylite.paymentservice.modules.payment.dto.PaymentSummary;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Maps a row of {@link #COLUMNS} from the payments table.
+ */
+final class PaymentSummaryRowMapper implements RowMapper<PaymentSummary> {
+    static final String COLUMNS = "id, payment_id, amount, currency, customer_email, reference, status, created_at, updated_at";
+    static final PaymentSummaryRowMapper INSTANCE = new PaymentSummaryRowMapper();
+
+    private PaymentSummaryRowMapper() {
+    }
+
+    @Override
+    public PaymentSummary mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new PaymentSummary(
+                TimeOrderedUuidGenerator.fromBytes(rs.getBytes("id")),
+                rs.getString("payment_id"),
+                rs.getBigDecimal("amount"),
+                rs.getString("currency"),
+                rs.getString("customer_email"),
+                rs.getString("reference"),
+                rs.getString("status"),
+                toLocalDateTime(rs.getTimestamp("created_at")),
+                toLocalDateTime(rs.getTimestamp("updated_at")));
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -1,20 +1,42 @@
 
 package com.paylite.paymentservice.modules.payment.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.paylite.paymentservice.modules.payment.dto.CreatePaymentRequest;
+import com.paylite.paymentservice.modules.payment.dto.IdempotencyLookupResult;
+import com.paylite.paymentservice.modules.payment.dto.StoredResponse;
+import com.paylite.paymentservice.modules.payment.entity.IdempotencyKey;
+import com.paylite.paymentservice.modules.payment.fingerprint.RequestFingerprint;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface IIdempotencyService {
 
     /**
-     * Generate a request hash for idempotency checking
+     * Compute the versioned canonical fingerprint of a create request for idempotency checking
      *
-     * @param request The request object to hash
-     * @return SHA-256 hash of the request as Base64 string
-     * @throws JsonProcessingException if JSON serialization fails
+     * @param request The request to fingerprint
+     * @return Fingerprint whose value is stored as the request hash
      */
-    String generateRequestHash(Object request) throws JsonProcessingException;
+    RequestFingerprint fingerprint(CreatePaymentRequest request);
+
+    /**
+     * Resolve an idempotency key against a request fingerprint with a single read
+     *
+     * @param idempotencyKey The idempotency key to check
+     * @param fingerprint    The fingerprint of the incoming request
+     * @return ABSENT, MATCH (with the cached response) or CONFLICT
+     */
+    IdempotencyLookupResult lookup(String idempotencyKey, RequestFingerprint fingerprint);
+
+    /**
+     * Resolve many idempotency keys at once with at most one database query
+     *
+     * @param fingerprintsByKey Request fingerprint for each idempotency key
+     * @return Lookup result for every key in the input
+     */
+    Map<String, IdempotencyLookupResult> lookupAll(Map<String, RequestFingerprint> fingerprintsByKey);
 
     /**
      * Get cached response for an idempotency key
@@ -22,23 +44,22 @@ public interface IIdempotencyService {
      * @param idempotencyKey The idempotency key to check
      * @return Optional containing cached response if exists
      */
-    Optional<String> getCachedResponse(String idempotencyKey);
+    Optional<StoredResponse> getCachedResponse(String idempotencyKey);
 
     /**
-     * Store idempotency key with request hash and response
+     * Store idempotency key with request hash and response.
+     * The row is flushed immediately so it acts as a reservation on the unique key.
      *
      * @param idempotencyKey The idempotency key
      * @param requestHash    The hash of the request
      * @param response       The response to cache
      */
-    void storeIdempotencyKey(String idempotencyKey, String requestHash, String response);
+    void storeIdempotencyKey(String idempotencyKey, String requestHash, StoredResponse response);
 
     /**
-     * Check if a request is a duplicate
+     * Store many idempotency keys as one batched insert
      *
-     * @param idempotencyKey The idempotency key
-     * @param requestHash    The hash of the request
-     * @return true if duplicate request exists
+     * @param keys The idempotency keys to insert
      */
-    boolean isDuplicateRequest(String idempotencyKey, String requestHash);
+    void storeIdempotencyKeys(List<IdempotencyKey> keys);
 }
\ No newline at end of file
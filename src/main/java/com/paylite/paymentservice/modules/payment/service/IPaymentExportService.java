@@ -0,0 +1,29 @@
+package com.paylite.paymentservice.modules.payment.service;
+
+import com.paylite.paymentservice.modules.payment.enums.ExportFormat;
+import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+public interface IPaymentExportService {
+
+    /**
+     * Stream every payment created in [from, to) to the target, row by row
+     *
+     * @param from   Start of the created-at range, inclusive
+     * @param to     End of the created-at range, exclusive
+     * @param status Only export payments in this status, or null for all
+     * @param format The row format to write
+     * @param target Opened only once the request is validated, so errors can still become a normal error response
+     * @return The number of payments exported
+     */
+    long exportPayments(LocalDateTime from, LocalDateTime to, PaymentStatus status, ExportFormat format,
+                        ExportTarget target) throws IOException;
+
+    @FunctionalInterface
+    interface ExportTarget {
+        OutputStream open() throws IOException;
+    }
+}
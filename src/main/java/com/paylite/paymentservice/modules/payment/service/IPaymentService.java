@@ -1,10 +1,18 @@
 package com.paylite.paymentservice.modules.payment.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.paylite.paymentservice.modules.payment.dto.BatchCreatePaymentRequest;
+import com.paylite.paymentservice.modules.payment.dto.BatchCreatePaymentResponse;
 import com.paylite.paymentservice.modules.payment.dto.CreatePaymentRequest;
 import com.paylite.paymentservice.modules.payment.dto.CreatePaymentResponse;
+import com.paylite.paymentservice.modules.payment.dto.PaymentPage;
 import com.paylite.paymentservice.modules.payment.dto.PaymentResponse;
+import com.paylite.paymentservice.modules.payment.dto.PaymentSearchCriteria;
+import com.paylite.paymentservice.modules.payment.dto.StoredResponse;
 import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+import com.paylite.paymentservice.modules.payment.enums.StatusTransitionOutcome;
+
+import java.util.Map;
 
 
 public interface IPaymentService {
@@ -14,12 +22,20 @@ public interface IPaymentService {
      *
      * @param request        The payment creation request
      * @param idempotencyKey The idempotency key to prevent duplicate payments
-     * @return CreatePaymentResponse with payment ID and status
+     * @return The encoded 201 response (payment ID and status), identical bytes on every replay
      * @throws JsonProcessingException if JSON processing fails
      */
-    CreatePaymentResponse createPayment(CreatePaymentRequest request, String idempotencyKey)
+    StoredResponse createPayment(CreatePaymentRequest request, String idempotencyKey)
             throws JsonProcessingException;
 
+    /**
+     * Create many payments in one call, each with its own idempotency key
+     *
+     * @param request The batch of payments to create
+     * @return One result per item, in request order
+     */
+    BatchCreatePaymentResponse createPayments(BatchCreatePaymentRequest request);
+
     /**
      * Retrieve a payment by its payment ID
      *
@@ -29,10 +45,30 @@ public interface IPaymentService {
     PaymentResponse getPayment(String paymentId);
 
     /**
-     * Update the status of a payment
+     * List payments matching the criteria, newest first
+     *
+     * @param criteria The filters to apply
+     * @param cursor   The nextCursor of the previous page, or null for the first page
+     * @param limit    The page size, at most 200
+     * @return One page of payments and the cursor for the next one
+     */
+    PaymentPage listPayments(PaymentSearchCriteria criteria, String cursor, int limit);
+
+    /**
+     * Update the status of a payment if the transition table allows it
      *
      * @param paymentId The payment ID to update
      * @param status    The new status to set
+     * @return Whether the status was applied, already set, or rejected as an invalid transition
+     */
+    StatusTransitionOutcome updatePaymentStatus(String paymentId, PaymentStatus status);
+
+    /**
+     * Update the status of many payments with one statement per target status.
+     * Payments whose current status cannot move to the requested one are left unchanged.
+     *
+     * @param statusByPaymentId The new status keyed by payment ID
+     * @return The outcome for each payment that exists; missing payments are absent
      */
-    void updatePaymentStatus(String paymentId, PaymentStatus status);
-}
\ No newline at end of file
+    Map<String, StatusTransitionOutcome> updatePaymentStatuses(Map<String, PaymentStatus> statusByPaymentId);
+}
@@ -0,0 +1,75 @@
+package com.paylite.paymentservice.modules.payment.service;
+
+import com.paylite.paymentservice.modules.payment.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes idempotency keys older than the retention window in small batches so the
+ * idempotency_keys table stays bounded without long-running deletes or lock spikes.
+ */
+@Slf4j
+@Component
+public class IdempotencyKeyPurger {
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final Duration retention;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    private final Counter purgedCounter;
+    private final Timer purgeTimer;
+    private final AtomicLong tableRows = new AtomicLong();
+
+    public IdempotencyKeyPurger(IdempotencyKeyRepository idempotencyKeyRepository,
+                                @Value("${app.idempotency.retention:24h}") Duration retention,
+                                @Value("${app.idempotency.purge.batch-size:500}") int batchSize,
+                                @Value("${app.idempotency.purge.max-batches-per-run:20}") int maxBatchesPerRun,
+                                MeterRegistry meterRegistry) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.purgedCounter = Counter.builder("idempotency.keys.purged")
+                .description("Expired idempotency keys deleted by the purger")
+                .register(meterRegistry);
+        this.purgeTimer = Timer.builder("idempotency.keys.purge")
+                .description("Duration of idempotency key purge runs")
+                .register(meterRegistry);
+        Gauge.builder("idempotency.keys.table.rows", tableRows, AtomicLong::get)
+                .description("Estimated number of rows in idempotency_keys")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge.interval:1m}",
+            initialDelayString = "${app.idempotency.purge.interval:1m}")
+    public void purgeExpiredKeys() {
+        purgeTimer.record(() -> {
+            LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+            int purged = 0;
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                int deleted = idempotencyKeyRepository.deleteExpiredBatch(cutoff, batchSize);
+                purged += deleted;
+                purgedCounter.increment(deleted);
+                if (deleted < batchSize) {
+                    break;
+                }
+            }
+            if (purged > 0) {
+                log.info("Purged {} idempotency keys created before {}", purged, cutoff);
+            }
+
+            Long estimate = idempotencyKeyRepository.estimateRowCount();
+            tableRows.set(estimate != null ? estimate : 0);
+        });
+    }
+}
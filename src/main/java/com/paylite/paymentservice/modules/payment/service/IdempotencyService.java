@@ -1,59 +1,162 @@
 package com.paylite.paymentservice.modules.payment.service;
 
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.paylite.paymentservice.common.exceptions.PayliteException;
-import com.paylite.paymentservice.common.utilities.HashUtility;
+import com.paylite.paymentservice.modules.payment.cache.IdempotencyKeyCache;
+import com.paylite.paymentservice.modules.payment.dto.CreatePaymentRequest;
+import com.paylite.paymentservice.modules.payment.dto.IdempotencyLookupResult;
+import com.paylite.paymentservice.modules.payment.dto.StoredResponse;
 import com.paylite.paymentservice.modules.payment.entity.IdempotencyKey;
+import com.paylite.paymentservice.modules.payment.fingerprint.PaymentRequestFingerprinter;
+import com.paylite.paymentservice.modules.payment.fingerprint.RequestFingerprint;
 import com.paylite.paymentservice.modules.payment.repository.IdempotencyKeyRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class IdempotencyService implements IIdempotencyService {
+
+    @Value("${app.idempotency.retention:24h}")
+    private Duration retention;
+
     private final IdempotencyKeyRepository idempotencyKeyRepository;
-    private final ObjectMapper objectMapper;
-    private final HashUtility hashUtility;
-
-    public String generateRequestHash(Object request) {
-        try {
-            String requestJson = objectMapper.writeValueAsString(request);
-            return hashUtility.generateSha256Hash(requestJson);
-        } catch (JsonProcessingException e) {
-            throw PayliteException.internalError(e.getMessage());
+    private final PaymentRequestFingerprinter fingerprinter;
+    private final IdempotencyKeyCache idempotencyKeyCache;
+
+    public RequestFingerprint fingerprint(CreatePaymentRequest request) {
+        return fingerprinter.fingerprint(request);
+    }
+
+    public IdempotencyLookupResult lookup(String idempotencyKey, RequestFingerprint fingerprint) {
+        // Retries usually arrive within seconds, so try the near cache before the database
+        var cached = idempotencyKeyCache.get(idempotencyKey);
+        if (cached.isPresent()) {
+            return classify(cached.get().getRequestHash(), cached.get().getResponse(), fingerprint);
+        }
+
+        // One read on the unique key index answers absent / match / conflict
+        return idempotencyKeyRepository.findByKey(idempotencyKey)
+                .map(existing -> resolveStored(existing, fingerprint))
+                .orElseGet(IdempotencyLookupResult::absent);
+    }
+
+    public Map<String, IdempotencyLookupResult> lookupAll(Map<String, RequestFingerprint> fingerprintsByKey) {
+        Map<String, IdempotencyLookupResult> results = new HashMap<>(fingerprintsByKey.size() * 2);
+        List<String> misses = new ArrayList<>();
+        fingerprintsByKey.forEach((idempotencyKey, fingerprint) -> {
+            var cached = idempotencyKeyCache.get(idempotencyKey);
+            if (cached.isPresent()) {
+                results.put(idempotencyKey,
+                        classify(cached.get().getRequestHash(), cached.get().getResponse(), fingerprint));
+            } else {
+                misses.add(idempotencyKey);
+            }
+        });
+
+        // Everything the near cache could not answer is resolved with a single IN query
+        if (!misses.isEmpty()) {
+            for (IdempotencyKey existing : idempotencyKeyRepository.findByKeyIn(misses)) {
+                results.put(existing.getKey(), resolveStored(existing, fingerprintsByKey.get(existing.getKey())));
+            }
+            misses.forEach(idempotencyKey -> results.putIfAbsent(idempotencyKey, IdempotencyLookupResult.absent()));
         }
+        return results;
     }
 
-    public Optional<String> getCachedResponse(String idempotencyKey) {
+    public Optional<StoredResponse> getCachedResponse(String idempotencyKey) {
         return idempotencyKeyRepository.findByKey(idempotencyKey)
-                .map(IdempotencyKey::getResponseBody);
+                .map(this::storedResponseOf);
     }
 
     @Transactional
-    public void storeIdempotencyKey(String idempotencyKey, String requestHash, String response) {
+    public void storeIdempotencyKey(String idempotencyKey, String requestHash, StoredResponse response) {
         IdempotencyKey keyEntity = new IdempotencyKey();
         keyEntity.setKey(idempotencyKey);
         keyEntity.setRequestHash(requestHash);
-        keyEntity.setResponseBody(response);
+        keyEntity.setResponseBytes(response.encode());
 
-        idempotencyKeyRepository.save(keyEntity);
+        // Inserted straight away so the unique key index arbitrates concurrent reservations before the payment is written
+        idempotencyKeyRepository.insert(keyEntity);
+        afterCommit(() -> idempotencyKeyCache.put(idempotencyKey, requestHash, response));
         log.debug("Stored idempotency key: {}", idempotencyKey);
     }
 
-    public boolean isDuplicateRequest(String idempotencyKey, String requestHash) {
-        // Check if the same key exists with a different request hash
-        return idempotencyKeyRepository.existsByKeyAndRequestHashNot(idempotencyKey, requestHash);
+    @Transactional
+    public void storeIdempotencyKeys(List<IdempotencyKey> keys) {
+        // Inserted as one JDBC batch so unique key violations surface before the payments are written
+        idempotencyKeyRepository.insertAll(keys);
+        afterCommit(() -> keys.forEach(key ->
+                idempotencyKeyCache.put(key.getKey(), key.getRequestHash(), storedResponseOf(key))));
+        log.debug("Stored {} idempotency keys", keys.size());
     }
 
-    public boolean hasSameRequest(String idempotencyKey, String requestHash) {
-        // Check if the same key exists with the same request hash
-        return idempotencyKeyRepository.existsByKeyAndRequestHash(idempotencyKey, requestHash);
+    private IdempotencyLookupResult resolveStored(IdempotencyKey existing, RequestFingerprint fingerprint) {
+        if (isExpired(existing)) {
+            // Past the retention window the key is free again; drop the stale row so it can be reused
+            idempotencyKeyRepository.deleteExpiredByKey(existing.getKey(), expiryCutoff());
+            log.debug("Idempotency key expired: {}", existing.getKey());
+            return IdempotencyLookupResult.absent();
+        }
+        StoredResponse response = storedResponseOf(existing);
+        if (response != null) {
+            idempotencyKeyCache.put(existing.getKey(), existing.getRequestHash(), response);
+        }
+        return classify(existing.getRequestHash(), response, fingerprint);
+    }
+
+    private StoredResponse storedResponseOf(IdempotencyKey key) {
+        if (key.getResponseBytes() != null) {
+            return StoredResponse.decode(key.getResponseBytes());
+        }
+        if (key.getResponseBody() != null) {
+            // Rows written before response_bytes held the JSON of a 201 Created
+            return StoredResponse.json(HttpStatus.CREATED.value(), key.getResponseBody().getBytes(StandardCharsets.UTF_8));
+        }
+        return null;
+    }
+
+    private boolean isExpired(IdempotencyKey key) {
+        return key.getCreatedAt() != null && key.getCreatedAt().isBefore(expiryCutoff());
+    }
+
+    private LocalDateTime expiryCutoff() {
+        return LocalDateTime.now().minus(retention);
+    }
+
+    private IdempotencyLookupResult classify(String storedHash, StoredResponse storedResponse, RequestFingerprint fingerprint) {
+        return fingerprint.matches(storedHash)
+                ? IdempotencyLookupResult.match(storedResponse)
+                : IdempotencyLookupResult.conflict();
+    }
+
+    private void afterCommit(Runnable action) {
+        // Only publish to the near cache once the row is durable, otherwise a rollback leaves a phantom key
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package com.paylite.paymentservice.modules.payment.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paylite.paymentservice.common.exceptions.PayliteException;
+import com.paylite.paymentservice.modules.payment.enums.ExportFormat;
+import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+import com.paylite.paymentservice.modules.payment.export.PaymentExportWriter;
+import com.paylite.paymentservice.modules.payment.repository.PaymentExportRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Streams payments from a database cursor straight into the response body, so an export of
+ * millions of rows holds one row and the output buffers in memory at a time.
+ */
+@Slf4j
+@Service
+public class PaymentExportService implements IPaymentExportService {
+    private final PaymentExportRepository paymentExportRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration maxRange;
+    private final MeterRegistry meterRegistry;
+
+    public PaymentExportService(PaymentExportRepository paymentExportRepository,
+                                ObjectMapper objectMapper,
+                                @Value("${app.payment.export.max-range:31d}") Duration maxRange,
+                                MeterRegistry meterRegistry) {
+        this.paymentExportRepository = paymentExportRepository;
+        this.objectMapper = objectMapper;
+        this.maxRange = maxRange;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public long exportPayments(LocalDateTime from, LocalDateTime to, PaymentStatus status, ExportFormat format,
+                               ExportTarget target) throws IOException {
+        if (!from.isBefore(to)) {
+            throw PayliteException.badRequest("from must be before to");
+        }
+        if (Duration.between(from, to).compareTo(maxRange) > 0) {
+            throw PayliteException.badRequest("Export range cannot exceed " + maxRange.toDays() + " days");
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long rows;
+        OutputStream out = target.open();
+        PaymentExportWriter writer = PaymentExportWriter.create(format, out, objectMapper);
+        try {
+            rows = paymentExportRepository.forEachCreatedBetween(from, to, status, payment -> {
+                try {
+                    writer.write(payment);
+                } catch (IOException e) {
+                    // Usually the client went away; stop reading the cursor
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+        out.close();
+
+        long nanos = sample.stop(Timer.builder("payment.export.duration")
+                .tag("format", format.name().toLowerCase())
+                .description("Time to stream one payment export")
+                .register(meterRegistry));
+        Counter.builder("payment.export.rows")
+                .tag("format", format.name().toLowerCase())
+                .description("Payments written by exports")
+                .register(meterRegistry)
+                .increment(rows);
+        log.info("Exported {} payments created between {} and {} as {} in {} ms ({} rows/s)", rows, from, to, format,
+                nanos / 1_000_000, nanos == 0 ? rows : rows * 1_000_000_000L / nanos);
+        return rows;
+    }
+}
@@ -4,97 +4,347 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.paylite.paymentservice.common.exceptions.PayliteException;
 import com.paylite.paymentservice.common.utilities.IdGenerator;
+import com.paylite.paymentservice.common.utilities.SingleFlight;
+import com.paylite.paymentservice.modules.outbox.service.IOutboxService;
+import com.paylite.paymentservice.modules.payment.cache.PaymentResponseCache;
+import com.paylite.paymentservice.modules.payment.dto.BatchCreatePaymentItem;
+import com.paylite.paymentservice.modules.payment.dto.BatchCreatePaymentRequest;
+import com.paylite.paymentservice.modules.payment.dto.BatchCreatePaymentResponse;
+import com.paylite.paymentservice.modules.payment.dto.BatchPaymentResult;
 import com.paylite.paymentservice.modules.payment.dto.CreatePaymentRequest;
 import com.paylite.paymentservice.modules.payment.dto.CreatePaymentResponse;
+import com.paylite.paymentservice.modules.payment.dto.IdempotencyLookupResult;
+import com.paylite.paymentservice.modules.payment.dto.PaymentCursor;
+import com.paylite.paymentservice.modules.payment.dto.PaymentPage;
 import com.paylite.paymentservice.modules.payment.dto.PaymentResponse;
+import com.paylite.paymentservice.modules.payment.dto.PaymentSearchCriteria;
+import com.paylite.paymentservice.modules.payment.dto.PaymentSummary;
+import com.paylite.paymentservice.modules.payment.dto.StoredResponse;
+import com.paylite.paymentservice.modules.payment.entity.IdempotencyKey;
 import com.paylite.paymentservice.modules.payment.entity.Payment;
+import com.paylite.paymentservice.modules.payment.enums.BatchItemOutcome;
+import com.paylite.paymentservice.modules.payment.enums.IdempotencyLookupStatus;
 import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+import com.paylite.paymentservice.modules.payment.enums.StatusTransitionOutcome;
+import com.paylite.paymentservice.modules.payment.fingerprint.RequestFingerprint;
+import com.paylite.paymentservice.modules.payment.mapper.PaymentMapper;
+import com.paylite.paymentservice.modules.payment.notification.PaymentStatusWaiters;
 import com.paylite.paymentservice.modules.payment.repository.PaymentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PaymentService implements IPaymentService {
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final PaymentRepository paymentRepository;
     private final IdempotencyService idempotencyService;
     private final IdGenerator idGenerator;
-    private final ModelMapper modelMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentResponseCache paymentResponseCache;
+    private final ObjectMapper objectMapper;
+    private final IOutboxService outboxService;
+    private final PaymentStatusWaiters paymentStatusWaiters;
+    private final SingleFlight<String, StoredResponse> inFlightCreates = new SingleFlight<>();
 
-    @Transactional
-    public CreatePaymentResponse createPayment(CreatePaymentRequest request, String idempotencyKey) {
+    public StoredResponse createPayment(CreatePaymentRequest request, String idempotencyKey) {
 
-        String requestHash = idempotencyService.generateRequestHash(request);
+        RequestFingerprint fingerprint = idempotencyService.fingerprint(request);
 
-        // Check if we've seen this exact request before (same key + same payload)
-        if (idempotencyService.hasSameRequest(idempotencyKey, requestHash)) {
-            log.info("Returning cached response for idempotency key: {}", idempotencyKey);
-            var cachedResponse = idempotencyService.getCachedResponse(idempotencyKey);
-            if (cachedResponse.isPresent()) {
-                try {
-                    return modelMapper.map(
-                            new ObjectMapper().readValue(cachedResponse.get(), CreatePaymentResponse.class),
-                            CreatePaymentResponse.class
-                    );
-                } catch (JsonProcessingException e) {
-                    throw PayliteException.internalError(e.getMessage());
+        // Concurrent identical requests on this node wait for and share the first caller's result
+        return inFlightCreates.execute(idempotencyKey + ":" + fingerprint.getValue(),
+                () -> createOnce(request, idempotencyKey, fingerprint));
+    }
+
+    private StoredResponse createOnce(CreatePaymentRequest request, String idempotencyKey, RequestFingerprint fingerprint) {
+        // Resolved outside the write transaction so near-cache hits never borrow a pooled connection
+        IdempotencyLookupResult lookup = idempotencyService.lookup(idempotencyKey, fingerprint);
+
+        if (lookup.getStatus() == IdempotencyLookupStatus.ABSENT) {
+            try {
+                return transactionTemplate.execute(status -> insertPayment(request, idempotencyKey, fingerprint.getValue()));
+            } catch (DataIntegrityViolationException e) {
+                // Another node reserved the key first; its transaction has committed by the time we get here
+                log.info("Idempotency key {} was reserved concurrently, resolving against the stored request", idempotencyKey);
+                lookup = idempotencyService.lookup(idempotencyKey, fingerprint);
+                if (lookup.getStatus() == IdempotencyLookupStatus.ABSENT) {
+                    log.error("Payment creation failed for idempotency key: {}", idempotencyKey, e);
+                    throw PayliteException.internalError("Failed to create payment, please retry");
                 }
             }
         }
 
-        // Check for conflict (same key, different payload)
-        if (idempotencyService.isDuplicateRequest(idempotencyKey, requestHash)) {
+        return resolveExisting(lookup, idempotencyKey);
+    }
+
+    private StoredResponse resolveExisting(IdempotencyLookupResult lookup, String idempotencyKey) {
+        // Same key, different payload
+        if (lookup.getStatus() == IdempotencyLookupStatus.CONFLICT) {
             log.warn("Idempotency key conflict for key: {} - different payload detected", idempotencyKey);
             throw PayliteException.conflict("Idempotency key conflict - request payload differs from original");
         }
 
+        // Same key + same payload: replay the cached response
+        if (lookup.getCachedResponse() == null) {
+            throw PayliteException.conflict("Idempotent request is still being processed");
+        }
+        log.info("Returning cached response for idempotency key: {}", idempotencyKey);
+        return lookup.getCachedResponse();
+    }
+
+    private StoredResponse insertPayment(CreatePaymentRequest request, String idempotencyKey, String requestHash) {
+        Payment payment = PaymentMapper.toPayment(idGenerator.generatePaymentId(), request);
+        // Encoded once here; replays write these bytes back without touching Jackson again
+        StoredResponse response = encodeCreated(PaymentMapper.toCreatePaymentResponse(payment));
 
-        // Create new payment
-        Payment payment = new Payment();
-        payment.setPaymentId(idGenerator.generatePaymentId());
-        payment.setAmount(request.getAmount());
-        payment.setCurrency(request.getCurrency());
-        payment.setCustomerEmail(request.getCustomerEmail());
-        payment.setReference(request.getReference());
-        payment.setStatus(PaymentStatus.PENDING);
+        // Reserve the key before writing the payment: the unique index makes a concurrent
+        // reservation (on any node) wait for this transaction and then fail, so no duplicate payment is written
+        idempotencyService.storeIdempotencyKey(idempotencyKey, requestHash, response);
 
         Payment savedPayment = paymentRepository.save(payment);
         log.info("Created payment with ID: {}", savedPayment.getPaymentId());
+        return response;
+    }
+
+    public BatchCreatePaymentResponse createPayments(BatchCreatePaymentRequest request) {
+        List<BatchCreatePaymentItem> items = request.getItems();
+        RequestFingerprint[] fingerprints = new RequestFingerprint[items.size()];
+        Map<String, RequestFingerprint> fingerprintsByKey = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            fingerprints[i] = idempotencyService.fingerprint(items.get(i).getPayment());
+            fingerprintsByKey.putIfAbsent(items.get(i).getIdempotencyKey(), fingerprints[i]);
+        }
+
+        // One query resolves idempotency for the whole batch
+        Map<String, IdempotencyLookupResult> lookups = idempotencyService.lookupAll(fingerprintsByKey);
+
+        BatchPaymentResult[] results = new BatchPaymentResult[items.size()];
+        Map<String, BatchPaymentResult> createdByKey = new HashMap<>();
+        List<Integer> createdIndexes = new ArrayList<>();
+        List<Payment> payments = new ArrayList<>();
+        List<IdempotencyKey> keys = new ArrayList<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            String idempotencyKey = items.get(i).getIdempotencyKey();
+            if (!fingerprints[i].equals(fingerprintsByKey.get(idempotencyKey))) {
+                // Key reused inside the batch with a different payload
+                results[i] = conflictResult(idempotencyKey);
+                continue;
+            }
+
+            IdempotencyLookupResult lookup = lookups.get(idempotencyKey);
+            if (lookup.getStatus() == IdempotencyLookupStatus.CONFLICT || lookup.getStatus() == IdempotencyLookupStatus.MATCH) {
+                results[i] = replayOrConflictResult(idempotencyKey, lookup);
+                continue;
+            }
+
+            BatchPaymentResult created = createdByKey.get(idempotencyKey);
+            if (created == null) {
+                Payment payment = PaymentMapper.toPayment(idGenerator.generatePaymentId(), items.get(i).getPayment());
+                CreatePaymentResponse response = PaymentMapper.toCreatePaymentResponse(payment);
+                payments.add(payment);
+                keys.add(IdempotencyKey.builder()
+                        .key(idempotencyKey)
+                        .requestHash(fingerprints[i].getValue())
+                        .responseBytes(encodeCreated(response).encode())
+                        .build());
+                created = new BatchPaymentResult(idempotencyKey, BatchItemOutcome.CREATED,
+                        response.getPaymentId(), response.getStatus(), "Payment created");
+                createdByKey.put(idempotencyKey, created);
+                results[i] = created;
+            } else {
+                results[i] = new BatchPaymentResult(idempotencyKey, BatchItemOutcome.REPLAYED,
+                        created.getPaymentId(), created.getStatus(), "Duplicate of an earlier item in this batch");
+            }
+            createdIndexes.add(i);
+        }
+
+        if (!payments.isEmpty()) {
+            try {
+                // Keys first, then payments, each written as JDBC batches in one transaction
+                transactionTemplate.executeWithoutResult(status -> {
+                    idempotencyService.storeIdempotencyKeys(keys);
+                    paymentRepository.saveAll(payments);
+                });
+                log.info("Created {} payments in batch of {}", payments.size(), items.size());
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent request claimed one of the keys; settle the new items one at a time instead
+                log.warn("Batch insert raced with a concurrent request, settling {} items individually", createdIndexes.size());
+                settleIndividually(items, fingerprints, createdIndexes, results);
+            }
+        }
+
+        return new BatchCreatePaymentResponse(Arrays.asList(results));
+    }
+
+    private void settleIndividually(List<BatchCreatePaymentItem> items, RequestFingerprint[] fingerprints,
+                                    List<Integer> indexes, BatchPaymentResult[] results) {
+        Map<String, BatchPaymentResult> settledByKey = new HashMap<>();
+        for (int i : indexes) {
+            String idempotencyKey = items.get(i).getIdempotencyKey();
+            BatchPaymentResult settled = settledByKey.get(idempotencyKey);
+            if (settled != null) {
+                results[i] = new BatchPaymentResult(idempotencyKey, BatchItemOutcome.REPLAYED,
+                        settled.getPaymentId(), settled.getStatus(), settled.getMessage());
+                continue;
+            }
 
-        CreatePaymentResponse response = new CreatePaymentResponse(
-                savedPayment.getPaymentId(),
-                savedPayment.getStatus().name()
-        );
+            IdempotencyLookupResult lookup = idempotencyService.lookup(idempotencyKey, fingerprints[i]);
+            if (lookup.getStatus() == IdempotencyLookupStatus.ABSENT) {
+                try {
+                    CreatePaymentResponse response = readCachedResponse(createPayment(items.get(i).getPayment(), idempotencyKey));
+                    settled = new BatchPaymentResult(idempotencyKey, BatchItemOutcome.CREATED,
+                            response.getPaymentId(), response.getStatus(), "Payment created");
+                } catch (PayliteException e) {
+                    settled = new BatchPaymentResult(idempotencyKey, BatchItemOutcome.CONFLICT,
+                            null, null, e.getMessage());
+                }
+            } else {
+                settled = replayOrConflictResult(idempotencyKey, lookup);
+            }
+            settledByKey.put(idempotencyKey, settled);
+            results[i] = settled;
+        }
+    }
+
+    private BatchPaymentResult replayOrConflictResult(String idempotencyKey, IdempotencyLookupResult lookup) {
+        if (lookup.getStatus() == IdempotencyLookupStatus.CONFLICT) {
+            return conflictResult(idempotencyKey);
+        }
+        if (lookup.getCachedResponse() == null) {
+            return new BatchPaymentResult(idempotencyKey, BatchItemOutcome.CONFLICT,
+                    null, null, "Idempotent request is still being processed");
+        }
+        CreatePaymentResponse cached = readCachedResponse(lookup.getCachedResponse());
+        return new BatchPaymentResult(idempotencyKey, BatchItemOutcome.REPLAYED,
+                cached.getPaymentId(), cached.getStatus(), "Returning cached response");
+    }
+
+    private BatchPaymentResult conflictResult(String idempotencyKey) {
+        return new BatchPaymentResult(idempotencyKey, BatchItemOutcome.CONFLICT, null, null,
+                "Idempotency key conflict - request payload differs from original");
+    }
 
-        // Cache the response for idempotency
-        String responseJson = null;
+    private StoredResponse encodeCreated(CreatePaymentResponse response) {
         try {
-            responseJson = new ObjectMapper().writeValueAsString(response);
+            return StoredResponse.json(HttpStatus.CREATED.value(), objectMapper.writeValueAsBytes(response));
         } catch (JsonProcessingException e) {
             throw PayliteException.internalError(e.getMessage());
         }
-        idempotencyService.storeIdempotencyKey(idempotencyKey, requestHash, responseJson);
-        return response;
+    }
+
+    private CreatePaymentResponse readCachedResponse(StoredResponse cachedResponse) {
+        try {
+            return objectMapper.readValue(cachedResponse.getBody(), CreatePaymentResponse.class);
+        } catch (IOException e) {
+            throw PayliteException.internalError(e.getMessage());
+        }
     }
 
     public PaymentResponse getPayment(String paymentId) {
-        Payment payment = paymentRepository.findByPaymentId(paymentId)
+        return paymentResponseCache.get(paymentId, id -> paymentRepository.findByPaymentId(id)
+                        .map(PaymentMapper::toPaymentResponse)
+                        .orElse(null))
                 .orElseThrow(() -> PayliteException.notFound("Payment not found: " + paymentId));
+    }
+
+    public PaymentPage listPayments(PaymentSearchCriteria criteria, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw PayliteException.badRequest("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        PaymentCursor after = cursor == null || cursor.isBlank() ? null : PaymentCursor.decode(cursor);
 
-        return modelMapper.map(payment, PaymentResponse.class);
+        // One extra row tells whether another page follows without a COUNT
+        List<PaymentSummary> payments = paymentRepository.search(criteria, after, limit + 1);
+        if (payments.size() <= limit) {
+            return new PaymentPage(payments, null);
+        }
+        List<PaymentSummary> page = payments.subList(0, limit);
+        return new PaymentPage(new ArrayList<>(page), PaymentCursor.after(page.get(limit - 1)).encode());
     }
 
     @Transactional
-    public void updatePaymentStatus(String paymentId, PaymentStatus status) {
-        Payment payment = paymentRepository.findByPaymentId(paymentId)
+    public StatusTransitionOutcome updatePaymentStatus(String paymentId, PaymentStatus status) {
+        // One guarded UPDATE; the status is only read back when it did not apply
+        Set<PaymentStatus> sources = status.allowedSources();
+        LocalDateTime now = LocalDateTime.now();
+        if (!sources.isEmpty() && paymentRepository.transitionStatus(paymentId, sources, status, now) > 0) {
+            outboxService.recordPaymentStatusChanges(List.of(paymentId), status);
+            paymentResponseCache.invalidateAfterCommit(List.of(paymentId));
+            paymentStatusWaiters.publishAfterCommit(List.of(paymentId), status, now);
+            log.info("Updated payment {} status to {}", paymentId, status);
+            return StatusTransitionOutcome.APPLIED;
+        }
+
+        PaymentStatus current = paymentRepository.findStatusByPaymentId(paymentId)
                 .orElseThrow(() -> PayliteException.notFound("Payment not found: " + paymentId));
+        if (current == status) {
+            log.info("Payment {} is already {}", paymentId, status);
+            return StatusTransitionOutcome.UNCHANGED;
+        }
+        log.warn("Rejected status transition for payment {} from {} to {}", paymentId, current, status);
+        return StatusTransitionOutcome.REJECTED;
+    }
+
+    @Transactional
+    public Map<String, StatusTransitionOutcome> updatePaymentStatuses(Map<String, PaymentStatus> statusByPaymentId) {
+        if (statusByPaymentId.isEmpty()) {
+            return Map.of();
+        }
+
+        // Locks the rows so the statuses read here are the ones the updates below replace,
+        // and the outbox gets exactly one event per payment that actually moved
+        Map<String, PaymentStatus> currentStatuses = new HashMap<>();
+        for (PaymentRepository.PaymentStatusView view : paymentRepository.findStatusesForUpdate(statusByPaymentId.keySet())) {
+            currentStatuses.put(view.getPaymentId(), view.getStatus());
+        }
+        // One UPDATE per target status instead of a find-and-save per payment
+        Map<String, StatusTransitionOutcome> outcomes = new LinkedHashMap<>();
+        Map<PaymentStatus, List<String>> paymentIdsByStatus = new EnumMap<>(PaymentStatus.class);
+        statusByPaymentId.forEach((paymentId, status) -> {
+            PaymentStatus current = currentStatuses.get(paymentId);
+            if (current == null) {
+                return;
+            }
+            if (status.allowedSources().contains(current)) {
+                paymentIdsByStatus.computeIfAbsent(status, s -> new ArrayList<>()).add(paymentId);
+                outcomes.put(paymentId, StatusTransitionOutcome.APPLIED);
+            } else if (current == status) {
+                outcomes.put(paymentId, StatusTransitionOutcome.UNCHANGED);
+            } else {
+                log.warn("Rejected status transition for payment {} from {} to {}", paymentId, current, status);
+                outcomes.put(paymentId, StatusTransitionOutcome.REJECTED);
+            }
+        });
 
-        payment.setStatus(status);
-        paymentRepository.save(payment);
-        log.info("Updated payment {} status to {}", paymentId, status);
+        LocalDateTime now = LocalDateTime.now();
+        paymentIdsByStatus.forEach((status, paymentIds) -> {
+            int updated = paymentRepository.updateStatusByPaymentIds(paymentIds, status.allowedSources(), status, now);
+            outboxService.recordPaymentStatusChanges(paymentIds, status);
+            log.info("Updated {} payments to status {}", updated, status);
+        });
+        paymentResponseCache.invalidateAfterCommit(outcomes.keySet());
+        paymentIdsByStatus.forEach((status, paymentIds) ->
+                paymentStatusWaiters.publishAfterCommit(paymentIds, status, now));
+        return outcomes;
     }
-}
\ No newline at end of file
+}
@@ -2,8 +2,12 @@ package com.paylite.paymentservice.modules.webhook;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.paylite.paymentservice.common.exceptions.PayliteException;
+import com.paylite.paymentservice.common.utilities.RequestBodyReader;
+import com.paylite.paymentservice.modules.webhook.dto.WebhookBatchRequest;
+import com.paylite.paymentservice.modules.webhook.dto.WebhookBatchResponse;
 import com.paylite.paymentservice.modules.webhook.dto.WebhookRequest;
 import com.paylite.paymentservice.modules.webhook.dto.WebhookResponse;
+import com.paylite.paymentservice.modules.webhook.service.AsyncWebhookProcessor;
 import com.paylite.paymentservice.modules.webhook.service.WebhookService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,28 +28,32 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class WebhookController {
     private final WebhookService webhookService;
+    private final AsyncWebhookProcessor asyncWebhookProcessor;
     private final ObjectMapper objectMapper;
+    private final RequestBodyReader requestBodyReader;
 
     @PostMapping("/psp")
     public ResponseEntity<WebhookResponse> handlePspWebhook(
             @RequestHeader("X-PSP-Signature") String signature,
             HttpServletRequest rawRequest) {
 
-        try {
-            // Extract raw body
-            String rawBody = extractRequestBody(rawRequest);
-
+        // Read the body exactly as sent; the signature covers these bytes, newlines included
+        try (RequestBodyReader.Body rawBody = requestBodyReader.read(rawRequest)) {
             // Verify HMAC signature BEFORE parsing
-            if (!webhookService.verifySignature(signature, rawBody)) {
+            if (!webhookService.verifySignature(signature, rawBody.asByteBuffer())) {
                 log.warn("Invalid webhook signature");
                 throw PayliteException.unauthorized("Invalid webhook signature");
             }
 
-            // Now parse the JSON to WebhookRequest
-            WebhookRequest request = objectMapper.readValue(rawBody, WebhookRequest.class);
+            // Now parse the JSON to WebhookRequest, straight from the same bytes
+            WebhookRequest request = objectMapper.readValue(rawBody.array(), 0, rawBody.length(), WebhookRequest.class);
+            String rawPayload = rawBody.asString();
 
             log.info("Received webhook for payment: {}", request.getPaymentId());
-            WebhookResponse response = webhookService.processWebhook(request, signature);
+            if (asyncWebhookProcessor.isEnabled()) {
+                return ResponseEntity.accepted().body(asyncWebhookProcessor.submit(request, rawPayload));
+            }
+            WebhookResponse response = webhookService.processWebhook(request, signature, rawPayload);
             return ResponseEntity.ok(response);
 
         } catch (IOException e) {
@@ -54,14 +62,27 @@ public class WebhookController {
         }
     }
 
-    private String extractRequestBody(HttpServletRequest request) throws IOException {
-        try (var reader = request.getReader()) {
-            StringBuilder stringBuilder = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                stringBuilder.append(line);
+    @PostMapping("/psp/batch")
+    public ResponseEntity<WebhookBatchResponse> handlePspWebhookBatch(
+            @RequestHeader("X-PSP-Signature") String signature,
+            HttpServletRequest rawRequest) {
+
+        try (RequestBodyReader.Body rawBody = requestBodyReader.read(rawRequest)) {
+            // One signature covers the whole batch
+            if (!webhookService.verifySignature(signature, rawBody.asByteBuffer())) {
+                log.warn("Invalid webhook batch signature");
+                throw PayliteException.unauthorized("Invalid webhook signature");
             }
-            return stringBuilder.toString();
+
+            WebhookBatchRequest request = objectMapper.readValue(rawBody.array(), 0, rawBody.length(), WebhookBatchRequest.class);
+
+            log.info("Received webhook batch with {} events",
+                    request.getEvents() == null ? 0 : request.getEvents().size());
+            return ResponseEntity.ok(webhookService.processWebhooks(request));
+
+        } catch (IOException e) {
+            log.error("Failed to read webhook batch request body", e);
+            throw PayliteException.badRequest("Failed to read request body");
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,149 @@
+package com.paylite.paymentservice.modules.webhook.cache;
+
+import com.paylite.paymentservice.common.utilities.RotatingBloomFilter;
+import com.paylite.paymentservice.modules.webhook.repository.WebhookEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bloom filter pre-check for batch webhook deduplication. Almost every webhook is new, so a
+ * definite "never seen" answer keeps an event out of the batch's existence query; only possible
+ * hits go to the database. Single webhooks are deduped by their insert and only feed the
+ * filter. The unique index on event_external_id stays the source of truth for events this
+ * node has not seen (older than the window, or stored by another node).
+ */
+@Slf4j
+@Component
+public class RecentWebhookEventFilter {
+    private final WebhookEventRepository webhookEventRepository;
+    private final boolean enabled;
+    private final int generations;
+    private final Duration rotationInterval;
+    private final long capacityPerGeneration;
+    private final RotatingBloomFilter filter;
+
+    private final Counter queriesAvoidedCounter;
+    private final Counter falsePositiveCounter;
+    private final Counter missedDuplicateCounter;
+    // Until warmed, every event counts as possibly seen so nothing skips the database
+    private volatile boolean warmed;
+
+    public RecentWebhookEventFilter(WebhookEventRepository webhookEventRepository,
+                                    @Value("${app.webhook.dedupe-filter.enabled:true}") boolean enabled,
+                                    @Value("${app.webhook.dedupe-filter.generations:4}") int generations,
+                                    @Value("${app.webhook.dedupe-filter.rotation-interval:6h}") Duration rotationInterval,
+                                    @Value("${app.webhook.dedupe-filter.expected-events-per-generation:250000}") long capacityPerGeneration,
+                                    @Value("${app.webhook.dedupe-filter.false-positive-probability:0.01}") double falsePositiveProbability,
+                                    MeterRegistry meterRegistry) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.enabled = enabled;
+        this.generations = generations;
+        this.rotationInterval = rotationInterval;
+        this.capacityPerGeneration = capacityPerGeneration;
+        this.filter = new RotatingBloomFilter(generations, capacityPerGeneration, falsePositiveProbability);
+
+        this.queriesAvoidedCounter = Counter.builder("webhook.dedupe.filter.queries_avoided")
+                .description("Webhooks the filter proved new, skipping the existence query")
+                .register(meterRegistry);
+        this.falsePositiveCounter = Counter.builder("webhook.dedupe.filter.false_positives")
+                .description("Webhooks the filter flagged as possibly seen that the database had not stored")
+                .register(meterRegistry);
+        this.missedDuplicateCounter = Counter.builder("webhook.dedupe.filter.missed_duplicates")
+                .description("Duplicates the filter did not know about, caught by the unique index")
+                .register(meterRegistry);
+        Gauge.builder("webhook.dedupe.filter.false_positive_rate", this, RecentWebhookEventFilter::falsePositiveRate)
+                .description("Share of new webhooks that still needed an existence query")
+                .register(meterRegistry);
+        Gauge.builder("webhook.dedupe.filter.entries", filter, RotatingBloomFilter::size)
+                .description("Event ids held across all filter generations")
+                .register(meterRegistry);
+        Gauge.builder("webhook.dedupe.filter.memory", filter, RotatingBloomFilter::memoryBytes)
+                .description("Memory reserved for the filter bit sets")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * False means the event id is definitely not among the recently stored events.
+     */
+    public boolean mightHaveSeen(String eventExternalId) {
+        if (!enabled || !warmed || filter.mightContain(eventExternalId)) {
+            return true;
+        }
+        queriesAvoidedCounter.increment();
+        return false;
+    }
+
+    /**
+     * Records the outcome of an existence query made because the filter answered "maybe".
+     */
+    public void recordChecked(boolean existed) {
+        if (enabled && warmed && !existed) {
+            falsePositiveCounter.increment();
+        }
+    }
+
+    public void recordMissedDuplicate() {
+        missedDuplicateCounter.increment();
+    }
+
+    public void add(String eventExternalId) {
+        filter.put(eventExternalId);
+    }
+
+    public void addAll(Collection<String> eventExternalIds) {
+        eventExternalIds.forEach(filter::put);
+    }
+
+    /**
+     * Loads events processed within the window, one generation at a time from oldest to newest,
+     * so each event ages out of the filter when it would have had it been seen live.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        long loaded = 0;
+        for (int generation = generations - 1; generation >= 0; generation--) {
+            LocalDateTime from = now.minus(rotationInterval.multipliedBy(generation + 1L));
+            // The newest window reaches past now to also cover events stored while warming
+            LocalDateTime to = now.minus(rotationInterval.multipliedBy(generation - 1L));
+            List<String> ids = webhookEventRepository.findEventExternalIdsProcessedBetween(
+                    from, to, PageRequest.of(0, (int) Math.min(capacityPerGeneration, Integer.MAX_VALUE)));
+            ids.forEach(filter::put);
+            loaded += ids.size();
+            if (generation > 0) {
+                filter.rotate();
+            }
+        }
+        warmed = true;
+        log.info("Webhook dedupe filter warmed with {} recent events ({} bytes)", loaded, filter.memoryBytes());
+    }
+
+    @Scheduled(fixedDelayString = "${app.webhook.dedupe-filter.rotation-interval:6h}",
+            initialDelayString = "${app.webhook.dedupe-filter.rotation-interval:6h}")
+    public void rotate() {
+        filter.rotate();
+    }
+
+    private double falsePositiveRate() {
+        double falsePositives = falsePositiveCounter.count();
+        double newEvents = falsePositives + queriesAvoidedCounter.count();
+        return newEvents == 0 ? 0 : falsePositives / newEvents;
+    }
+}
@@ -0,0 +1,14 @@
+package com.paylite.paymentservice.modules.webhook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookBatchResponse {
+    private List<WebhookEventResult> results;
+}
@@ -0,0 +1,16 @@
+package com.paylite.paymentservice.modules.webhook.dto;
+
+import com.paylite.paymentservice.modules.webhook.enums.WebhookEventOutcome;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookEventResult {
+    private String paymentId;
+    private String event;
+    private WebhookEventOutcome outcome;
+    private String message;
+}
@@ -0,0 +1,5 @@
+package com.paylite.paymentservice.modules.webhook.enums;
+
+public enum WebhookEventOutcome {
+    PROCESSED, DUPLICATE, REJECTED
+}
@@ -0,0 +1,33 @@
+package com.paylite.paymentservice.modules.webhook.mapper;
+
+import com.paylite.paymentservice.modules.webhook.dto.WebhookRequest;
+import com.paylite.paymentservice.modules.webhook.entity.WebhookEvent;
+import com.paylite.paymentservice.modules.webhook.queue.WebhookJournalEntry;
+
+import java.time.LocalDateTime;
+
+/**
+ * Hand-written conversions between webhook DTOs, journal entries and entities.
+ */
+public final class WebhookMapper {
+
+    private WebhookMapper() {
+    }
+
+    public static WebhookEvent toWebhookEvent(String eventExternalId, WebhookRequest request, String rawPayload) {
+        WebhookEvent webhookEvent = new WebhookEvent();
+        webhookEvent.setEventExternalId(eventExternalId);
+        webhookEvent.setPaymentId(request.getPaymentId());
+        webhookEvent.setEventType(request.getEvent());
+        webhookEvent.setRawPayload(rawPayload);
+        webhookEvent.setProcessedAt(LocalDateTime.now());
+        return webhookEvent;
+    }
+
+    public static WebhookRequest toWebhookRequest(WebhookJournalEntry entry) {
+        WebhookRequest request = new WebhookRequest();
+        request.setPaymentId(entry.getPaymentId());
+        request.setEvent(entry.getEvent());
+        return request;
+    }
+}
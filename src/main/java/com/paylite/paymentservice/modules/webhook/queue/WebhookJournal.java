@@ -0,0 +1,152 @@
+package com.paylite.paymentservice.modules.webhook.queue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only, fsync'd journal of accepted webhooks plus a checkpoint of the highest
+ * sequence applied. Entries after the checkpoint are replayed on startup.
+ * Not thread-safe; callers serialize access.
+ */
+@Slf4j
+public class WebhookJournal implements AutoCloseable {
+    static final String JOURNAL_FILE = "webhooks.journal";
+    static final String CHECKPOINT_FILE = "webhooks.checkpoint";
+    static final String DEAD_LETTER_FILE = "webhooks.dead";
+
+    private final Path dir;
+    private final ObjectMapper objectMapper;
+    private final FileChannel channel;
+    private long lastSeq;
+
+    public WebhookJournal(Path dir, ObjectMapper objectMapper) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.objectMapper = objectMapper;
+        this.channel = FileChannel.open(dir.resolve(JOURNAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Reads the journal and returns the entries not yet covered by the checkpoint.
+     * A torn trailing line from a crash mid-append was never acknowledged, so it is cut off
+     * before anything else is appended; an unreadable complete line means the journal is corrupt.
+     */
+    public List<WebhookJournalEntry> recover() throws IOException {
+        long checkpoint = readCheckpoint();
+        lastSeq = checkpoint;
+        List<WebhookJournalEntry> unapplied = new ArrayList<>();
+        // Offset just past the last '\n'; every byte before it belongs to a complete line
+        long completeLength = 0;
+        long offset = 0;
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(dir.resolve(JOURNAL_FILE)))) {
+            int b;
+            while ((b = in.read()) != -1) {
+                offset++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                WebhookJournalEntry entry = parse(line.toByteArray(), completeLength);
+                line.reset();
+                completeLength = offset;
+                if (entry == null) {
+                    continue;
+                }
+                lastSeq = Math.max(lastSeq, entry.getSeq());
+                if (entry.getSeq() > checkpoint) {
+                    unapplied.add(entry);
+                }
+            }
+        }
+        if (completeLength < channel.size()) {
+            log.warn("Truncating torn webhook journal tail of {} bytes", channel.size() - completeLength);
+            channel.truncate(completeLength);
+            channel.force(true);
+        }
+        return unapplied;
+    }
+
+    public WebhookJournalEntry append(String paymentId, String event, String rawPayload) throws IOException {
+        WebhookJournalEntry entry = new WebhookJournalEntry(lastSeq + 1, System.currentTimeMillis(), paymentId, event, rawPayload);
+        write(channel, entry);
+        channel.force(false);
+        lastSeq = entry.getSeq();
+        return entry;
+    }
+
+    public void checkpoint(long seq) throws IOException {
+        Path tmp = dir.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(tmp, Long.toString(seq), StandardCharsets.UTF_8);
+        Files.move(tmp, dir.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Drops all journal entries. Only call once every entry has been applied and checkpointed.
+     */
+    public void truncate() throws IOException {
+        channel.truncate(0);
+        channel.force(true);
+    }
+
+    public void deadLetter(WebhookJournalEntry entry) throws IOException {
+        try (FileChannel deadLetters = FileChannel.open(dir.resolve(DEAD_LETTER_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            write(deadLetters, entry);
+        }
+    }
+
+    public long lastSeq() {
+        return lastSeq;
+    }
+
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private WebhookJournalEntry parse(byte[] line, long lineOffset) throws IOException {
+        if (new String(line, StandardCharsets.UTF_8).isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(line, WebhookJournalEntry.class);
+        } catch (IOException e) {
+            throw new IOException("Corrupt webhook journal entry at offset " + lineOffset, e);
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path checkpoint = dir.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpoint)) {
+            return 0;
+        }
+        return Long.parseLong(Files.readString(checkpoint, StandardCharsets.UTF_8).trim());
+    }
+
+    private void write(FileChannel target, WebhookJournalEntry entry) throws IOException {
+        byte[] line = objectMapper.writeValueAsBytes(entry);
+        ByteBuffer buffer = ByteBuffer.allocate(line.length + 1).put(line).put((byte) '\n').flip();
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.paylite.paymentservice.modules.webhook.queue;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookJournalEntry {
+    private long seq;
+    private long enqueuedAt;
+    private String paymentId;
+    private String event;
+    // Body as received from the PSP; absent in entries journaled by older versions
+    private String rawPayload;
+}
@@ -0,0 +1,25 @@
+package com.paylite.paymentservice.modules.webhook.repository;
+
+import com.paylite.paymentservice.modules.webhook.entity.WebhookEvent;
+
+import java.util.List;
+
+/**
+ * Plain JDBC inserts for the append-only webhook_events table. Rows are never updated, so they
+ * skip the persistence context and its dirty checking entirely.
+ */
+public interface WebhookEventAppendRepository {
+
+    /**
+     * Inserts the event unless one with the same event_external_id exists; the unique index decides,
+     * so there is no separate lookup to race with.
+     *
+     * @return false if the event was already stored
+     */
+    boolean insertIfAbsent(WebhookEvent webhookEvent);
+
+    /**
+     * Inserts all events as one JDBC batch; a duplicate fails the batch with a DuplicateKeyException.
+     */
+    void insertAll(List<WebhookEvent> webhookEvents);
+}
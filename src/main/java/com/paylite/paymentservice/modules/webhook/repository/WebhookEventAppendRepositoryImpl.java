@@ -0,0 +1,55 @@
+package com.paylite.paymentservice.modules.webhook.repository;
+
+import com.paylite.paymentservice.common.utilities.TimeOrderedUuidGenerator;
+import com.paylite.paymentservice.modules.webhook.entity.WebhookEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+class WebhookEventAppendRepositoryImpl implements WebhookEventAppendRepository {
+    private static final String INSERT_SQL = "INSERT INTO webhook_events "
+            + "(id, event_external_id, payment_id, event_type, raw_payload, is_deleted, created_at, updated_at, processed_at) "
+            + "VALUES (?, ?, ?, ?, ?, FALSE, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean insertIfAbsent(WebhookEvent webhookEvent) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, parameters(webhookEvent, LocalDateTime.now()));
+            return true;
+        } catch (DuplicateKeyException e) {
+            // The only unique column besides the freshly generated id
+            return false;
+        }
+    }
+
+    @Override
+    public void insertAll(List<WebhookEvent> webhookEvents) {
+        if (webhookEvents.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_SQL, webhookEvents.stream()
+                .map(webhookEvent -> parameters(webhookEvent, now))
+                .toList());
+    }
+
+    private Object[] parameters(WebhookEvent webhookEvent, LocalDateTime now) {
+        LocalDateTime processedAt = webhookEvent.getProcessedAt() != null ? webhookEvent.getProcessedAt() : now;
+        return new Object[]{
+                TimeOrderedUuidGenerator.toBytes(TimeOrderedUuidGenerator.next()),
+                webhookEvent.getEventExternalId(),
+                webhookEvent.getPaymentId(),
+                webhookEvent.getEventType(),
+                webhookEvent.getRawPayload(),
+                now,
+                now,
+                processedAt
+        };
+    }
+}
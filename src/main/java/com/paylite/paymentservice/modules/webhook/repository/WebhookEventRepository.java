@@ -2,15 +2,30 @@ package com.paylite.paymentservice.modules.webhook.repository;
 
 
 import com.paylite.paymentservice.modules.webhook.entity.WebhookEvent;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface WebhookEventRepository extends JpaRepository<WebhookEvent, UUID> {
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, UUID>, WebhookEventAppendRepository {
     Optional<WebhookEvent> findByEventExternalId(String eventExternalId);
 
     boolean existsByEventExternalId(String eventExternalId);
 
     boolean existsByPaymentIdAndEventType(String paymentId, String eventType);
-}
\ No newline at end of file
+
+    @Query("SELECT e.eventExternalId FROM WebhookEvent e WHERE e.eventExternalId IN :eventExternalIds")
+    List<String> findExistingEventExternalIds(@Param("eventExternalIds") Collection<String> eventExternalIds);
+
+    @Query("SELECT e.eventExternalId FROM WebhookEvent e WHERE e.processedAt >= :from AND e.processedAt < :to "
+            + "AND e.eventExternalId IS NOT NULL ORDER BY e.processedAt DESC")
+    List<String> findEventExternalIdsProcessedBetween(@Param("from") LocalDateTime from,
+                                                      @Param("to") LocalDateTime to,
+                                                      Pageable pageable);
+}
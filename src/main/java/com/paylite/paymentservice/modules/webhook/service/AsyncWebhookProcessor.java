@@ -0,0 +1,321 @@
+package com.paylite.paymentservice.modules.webhook.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paylite.paymentservice.common.exceptions.PayliteException;
+import com.paylite.paymentservice.modules.webhook.dto.WebhookRequest;
+import com.paylite.paymentservice.modules.webhook.dto.WebhookResponse;
+import com.paylite.paymentservice.modules.webhook.mapper.WebhookMapper;
+import com.paylite.paymentservice.modules.webhook.queue.WebhookJournal;
+import com.paylite.paymentservice.modules.webhook.queue.WebhookJournalEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Accepts verified webhooks into a durable local journal and applies them in the
+ * background, so the PSP is acknowledged without waiting on the database.
+ * Events for the same payment are always applied by the same worker, in arrival order.
+ */
+@Slf4j
+@Component
+public class AsyncWebhookProcessor implements SmartLifecycle {
+    private final WebhookService webhookService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path dataDir;
+    private final int workerCount;
+    private final int capacity;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration drainTimeout;
+    private final long compactThresholdBytes;
+
+    private final Counter acceptedCounter;
+    private final Counter appliedCounter;
+    private final Counter rejectedCounter;
+    private final Counter deadLetteredCounter;
+
+    // Journal sequence -> enqueue time, for every accepted event not yet applied
+    private final ConcurrentSkipListMap<Long, Long> pending = new ConcurrentSkipListMap<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private WebhookJournal journal;
+    private ExecutorService[] workers;
+    private volatile boolean running;
+
+    public AsyncWebhookProcessor(WebhookService webhookService,
+                                 ObjectMapper objectMapper,
+                                 @Value("${app.webhook.async.enabled:false}") boolean enabled,
+                                 @Value("${app.webhook.async.data-dir:./data/webhooks}") Path dataDir,
+                                 @Value("${app.webhook.async.workers:4}") int workerCount,
+                                 @Value("${app.webhook.async.queue-capacity:10000}") int capacity,
+                                 @Value("${app.webhook.async.max-attempts:5}") int maxAttempts,
+                                 @Value("${app.webhook.async.retry-backoff:500ms}") Duration retryBackoff,
+                                 @Value("${app.webhook.async.drain-timeout:30s}") Duration drainTimeout,
+                                 @Value("${app.webhook.async.compact-threshold:64MB}") DataSize compactThreshold,
+                                 MeterRegistry meterRegistry) {
+        this.webhookService = webhookService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.dataDir = dataDir;
+        this.workerCount = workerCount;
+        this.capacity = capacity;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.drainTimeout = drainTimeout;
+        this.compactThresholdBytes = compactThreshold.toBytes();
+        this.acceptedCounter = Counter.builder("webhook.async.accepted")
+                .description("Webhooks journaled for background processing")
+                .register(meterRegistry);
+        this.appliedCounter = Counter.builder("webhook.async.applied")
+                .description("Journaled webhooks applied to the database")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("webhook.async.rejected")
+                .description("Webhooks refused because the queue was full or stopped")
+                .register(meterRegistry);
+        this.deadLetteredCounter = Counter.builder("webhook.async.dead_lettered")
+                .description("Journaled webhooks that could not be applied")
+                .register(meterRegistry);
+        Gauge.builder("webhook.queue.depth", depth, AtomicInteger::get)
+                .description("Journaled webhooks waiting to be applied")
+                .register(meterRegistry);
+        Gauge.builder("webhook.queue.lag", this, AsyncWebhookProcessor::lagSeconds)
+                .description("Age in seconds of the oldest webhook waiting to be applied")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Durably journals the webhook and hands it to its payment's worker.
+     * Fails with 400 for an event that could never be applied, and fast with 503 when the
+     * queue is full so the PSP backs off and retries.
+     */
+    public WebhookResponse submit(WebhookRequest request, String rawPayload) {
+        Optional<String> rejection = WebhookService.rejectionReason(request);
+        if (rejection.isPresent()) {
+            log.warn("Refusing webhook for payment {}: {}", request.getPaymentId(), rejection.get());
+            throw PayliteException.badRequest(rejection.get());
+        }
+
+        journalLock.lock();
+        try {
+            if (!running) {
+                rejectedCounter.increment();
+                throw PayliteException.serviceUnavailable("Webhook processing is not accepting events");
+            }
+            if (depth.get() >= capacity) {
+                rejectedCounter.increment();
+                log.warn("Webhook queue full at {} events, rejecting webhook for payment {}", capacity, request.getPaymentId());
+                throw PayliteException.serviceUnavailable("Webhook queue is full, retry later");
+            }
+
+            WebhookJournalEntry entry;
+            try {
+                entry = journal.append(request.getPaymentId(), request.getEvent(), rawPayload);
+            } catch (IOException e) {
+                log.error("Failed to journal webhook for payment: {}", request.getPaymentId(), e);
+                throw PayliteException.internalError("Failed to queue webhook");
+            }
+            // Dispatch under the lock so each worker sees its events in journal order
+            dispatch(entry);
+            acceptedCounter.increment();
+        } finally {
+            journalLock.unlock();
+        }
+        return new WebhookResponse("ACCEPTED", "Webhook queued for processing");
+    }
+
+    @Scheduled(fixedDelayString = "${app.webhook.async.checkpoint-interval:1s}")
+    public void checkpoint() {
+        if (!running) {
+            return;
+        }
+        journalLock.lock();
+        try {
+            writeCheckpoint();
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            journal = new WebhookJournal(dataDir, objectMapper);
+            List<WebhookJournalEntry> unapplied = journal.recover();
+
+            workers = new ExecutorService[workerCount];
+            for (int i = 0; i < workerCount; i++) {
+                String name = "webhook-worker-" + i;
+                workers[i] = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, name));
+            }
+
+            for (WebhookJournalEntry entry : unapplied) {
+                replay(entry);
+            }
+            running = true;
+            log.info("Async webhook processing started with {} workers, replaying {} journaled events from {}",
+                    workerCount, unapplied.size(), dataDir);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open webhook journal in " + dataDir, e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        journalLock.lock();
+        try {
+            running = false;
+        } finally {
+            journalLock.unlock();
+        }
+
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+        try {
+            long deadline = System.nanoTime() + drainTimeout.toNanos();
+            for (ExecutorService worker : workers) {
+                if (!worker.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    worker.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (ExecutorService worker : workers) {
+                worker.shutdownNow();
+            }
+        }
+
+        journalLock.lock();
+        try {
+            writeCheckpoint();
+            journal.close();
+        } catch (IOException e) {
+            log.error("Failed to close webhook journal", e);
+        } finally {
+            journalLock.unlock();
+        }
+        log.info("Async webhook processing stopped with {} events left for replay", depth.get());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Start before and stop after the web server, so no request lands on a stopped queue
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void replay(WebhookJournalEntry entry) {
+        // Entries journaled before submit validated them must not stop the application from starting
+        Optional<String> rejection = WebhookService.rejectionReason(WebhookMapper.toWebhookRequest(entry));
+        if (rejection.isPresent()) {
+            log.warn("Webhook {} for payment {} cannot be replayed: {}", entry.getSeq(), entry.getPaymentId(), rejection.get());
+            deadLetter(entry);
+            return;
+        }
+        dispatch(entry);
+    }
+
+    private void dispatch(WebhookJournalEntry entry) {
+        // Pick the worker first, so a failure here never leaves the entry pending forever
+        ExecutorService worker = workers[Math.floorMod(entry.getPaymentId().hashCode(), workers.length)];
+        pending.put(entry.getSeq(), entry.getEnqueuedAt());
+        depth.incrementAndGet();
+        worker.execute(() -> apply(entry));
+    }
+
+    private void apply(WebhookJournalEntry entry) {
+        WebhookRequest request = WebhookMapper.toWebhookRequest(entry);
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                webhookService.processWebhook(request, null, entry.getRawPayload());
+                appliedCounter.increment();
+                break;
+            } catch (PayliteException | IllegalArgumentException e) {
+                log.warn("Webhook {} for payment {} cannot be applied: {}", entry.getSeq(), entry.getPaymentId(), e.getMessage());
+                deadLetter(entry);
+                break;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("Giving up on webhook {} for payment {} after {} attempts", entry.getSeq(), entry.getPaymentId(), attempt, e);
+                    deadLetter(entry);
+                    break;
+                }
+                try {
+                    Thread.sleep(retryBackoff.multipliedBy(attempt).toMillis());
+                } catch (InterruptedException interrupted) {
+                    // Shutting down; leave the entry pending so it is replayed on restart
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        pending.remove(entry.getSeq());
+        depth.decrementAndGet();
+    }
+
+    private void deadLetter(WebhookJournalEntry entry) {
+        deadLetteredCounter.increment();
+        journalLock.lock();
+        try {
+            journal.deadLetter(entry);
+        } catch (IOException e) {
+            log.error("Failed to dead-letter webhook {} for payment {}", entry.getSeq(), entry.getPaymentId(), e);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    private void writeCheckpoint() {
+        try {
+            Map.Entry<Long, Long> oldest = pending.firstEntry();
+            long applied = oldest == null ? journal.lastSeq() : oldest.getKey() - 1;
+            journal.checkpoint(applied);
+            if (oldest == null && journal.size() > compactThresholdBytes) {
+                journal.truncate();
+            }
+        } catch (IOException e) {
+            log.error("Failed to checkpoint webhook journal", e);
+        }
+    }
+
+    private double lagSeconds() {
+        Map.Entry<Long, Long> oldest = pending.firstEntry();
+        return oldest == null ? 0 : (System.currentTimeMillis() - oldest.getValue()) / 1000.0;
+    }
+}
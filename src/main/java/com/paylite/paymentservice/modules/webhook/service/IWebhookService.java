@@ -1,20 +1,24 @@
 
 package com.paylite.paymentservice.modules.webhook.service;
 
+import com.paylite.paymentservice.modules.webhook.dto.WebhookBatchRequest;
+import com.paylite.paymentservice.modules.webhook.dto.WebhookBatchResponse;
 import com.paylite.paymentservice.modules.webhook.dto.WebhookRequest;
 import com.paylite.paymentservice.modules.webhook.dto.WebhookResponse;
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.nio.ByteBuffer;
+
 public interface IWebhookService {
 
     /**
      * Verify the HMAC signature of a webhook request
      *
      * @param signature The signature from X-PSP-Signature header
-     * @param payload   The raw request body
+     * @param payload   The raw request body bytes, exactly as received
      * @return true if signature is valid
      */
-    boolean verifySignature(String signature, String payload);
+    boolean verifySignature(String signature, ByteBuffer payload);
 
     /**
      * Process a webhook request from PSP (Payment Service Provider)
@@ -24,4 +28,22 @@ public interface IWebhookService {
      * @return WebhookResponse indicating processing result
      */
     WebhookResponse processWebhook(WebhookRequest request, String signature);
-}
\ No newline at end of file
+
+    /**
+     * Process a webhook request, storing the body exactly as the PSP sent it
+     *
+     * @param request    The webhook request data
+     * @param signature  The HMAC signature for verification
+     * @param rawPayload The raw request body, or null to store the serialized request
+     * @return WebhookResponse indicating processing result
+     */
+    WebhookResponse processWebhook(WebhookRequest request, String signature, String rawPayload);
+
+    /**
+     * Process a signed batch of webhook events from PSP
+     *
+     * @param request The batch of webhook events
+     * @return Per-event processing results, in request order
+     */
+    WebhookBatchResponse processWebhooks(WebhookBatchRequest request);
+}
@@ -7,36 +7,58 @@ import com.paylite.paymentservice.common.exceptions.PayliteException;
 import com.paylite.paymentservice.common.utilities.HmacUtility;
 import com.paylite.paymentservice.common.utilities.IdGenerator;
 import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+import com.paylite.paymentservice.modules.payment.enums.StatusTransitionOutcome;
 import com.paylite.paymentservice.modules.payment.service.PaymentService;
+import com.paylite.paymentservice.modules.webhook.cache.RecentWebhookEventFilter;
+import com.paylite.paymentservice.modules.webhook.dto.WebhookBatchRequest;
+import com.paylite.paymentservice.modules.webhook.dto.WebhookBatchResponse;
+import com.paylite.paymentservice.modules.webhook.dto.WebhookEventResult;
 import com.paylite.paymentservice.modules.webhook.dto.WebhookRequest;
 import com.paylite.paymentservice.modules.webhook.dto.WebhookResponse;
 import com.paylite.paymentservice.modules.webhook.entity.WebhookEvent;
+import com.paylite.paymentservice.modules.webhook.enums.WebhookEventOutcome;
+import com.paylite.paymentservice.modules.webhook.mapper.WebhookMapper;
 import com.paylite.paymentservice.modules.webhook.repository.WebhookEventRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class WebhookService implements IWebhookService{
+    private static final String IGNORED_MESSAGE = "Webhook ignored, payment is already settled";
 
     @Value("${app.webhook.secret:default-secret}")
     private String webhookSecret;
 
+    @Value("${app.webhook.batch.max-events:1000}")
+    private int maxBatchEvents;
+
     private final WebhookEventRepository webhookEventRepository;
     private final PaymentService paymentService;
     private final ObjectMapper objectMapper;
     private final IdGenerator idGenerator;
     private final HmacUtility hmacUtility;
+    private final TransactionTemplate transactionTemplate;
+    private final RecentWebhookEventFilter recentWebhookEventFilter;
 
-    public boolean verifySignature(String signature, String payload) {
+    public boolean verifySignature(String signature, ByteBuffer payload) {
         boolean isValid = hmacUtility.verifyHmacSignature(signature, payload, webhookSecret);
         if (!isValid) {
             log.warn("Webhook signature verification failed");
@@ -44,8 +66,11 @@ public class WebhookService implements IWebhookService{
         return isValid;
     }
 
-    @Transactional
     public WebhookResponse processWebhook(WebhookRequest request, String signature) {
+        return processWebhook(request, signature, null);
+    }
+
+    public WebhookResponse processWebhook(WebhookRequest request, String signature, String rawPayload) {
         // Remove the rawRequest parameter and HMAC verification from service
         // since it's now handled in the controller
 
@@ -53,46 +78,180 @@ public class WebhookService implements IWebhookService{
 
         String eventExternalId = idGenerator.generateEventId(request.getPaymentId(), request.getEvent());
 
-        // Check for duplicate webhook
-        if (webhookEventRepository.existsByEventExternalId(eventExternalId)) {
+        WebhookResponse response = transactionTemplate.execute(status -> applyWebhook(request, eventExternalId, rawPayload));
+        recentWebhookEventFilter.add(eventExternalId);
+        return response;
+    }
+
+    private WebhookResponse applyWebhook(WebhookRequest request, String eventExternalId, String rawPayload) {
+        // Process webhook based on event type
+        PaymentStatus newStatus = mapEventToStatus(request.getEvent());
+
+        // Record the event first, keeping the body as the PSP sent it when we have it. The unique
+        // index on event_external_id decides whether it is a duplicate in the same statement,
+        // so concurrent deliveries cannot both pass a separate existence check
+        boolean recorded = webhookEventRepository.insertIfAbsent(rawPayload != null
+                ? WebhookMapper.toWebhookEvent(eventExternalId, request, rawPayload)
+                : newWebhookEvent(eventExternalId, request));
+        if (!recorded) {
             log.info("Duplicate webhook detected for event ID: {}", eventExternalId);
             return new WebhookResponse("SUCCESS", "Webhook already processed");
         }
 
-        // Process webhook based on event type
-        PaymentStatus newStatus = mapEventToStatus(request.getEvent());
+        // Update payment status; a settled payment keeps its status, but the event stays recorded.
+        // A missing payment throws and rolls the recorded event back with it
+        StatusTransitionOutcome outcome = paymentService.updatePaymentStatus(request.getPaymentId(), newStatus);
+        if (outcome == StatusTransitionOutcome.REJECTED) {
+            log.warn("Ignored webhook {} for payment {}: payment is already settled", request.getEvent(), request.getPaymentId());
+            return new WebhookResponse("SUCCESS", IGNORED_MESSAGE);
+        }
+        log.info("Successfully processed webhook for payment {} with event {}", request.getPaymentId(), request.getEvent());
+
+        return new WebhookResponse("SUCCESS", "Webhook processed successfully");
+    }
+
+    public WebhookBatchResponse processWebhooks(WebhookBatchRequest request) {
+        List<WebhookRequest> events = request.getEvents();
+        if (events == null || events.isEmpty()) {
+            throw PayliteException.badRequest("At least one event is required");
+        }
+        if (events.size() > maxBatchEvents) {
+            throw PayliteException.badRequest("A batch can contain at most " + maxBatchEvents + " events");
+        }
 
-        // Update payment status
-        paymentService.updatePaymentStatus(request.getPaymentId(), newStatus);
+        log.info("Processing webhook batch of {} events", events.size());
 
-        // Record webhook event
+        List<String> recordedIds = new ArrayList<>();
+        WebhookBatchResponse response;
         try {
-            WebhookEvent webhookEvent = new WebhookEvent();
-            webhookEvent.setEventExternalId(eventExternalId);
-            webhookEvent.setPaymentId(request.getPaymentId());
-            webhookEvent.setEventType(request.getEvent());
-            webhookEvent.setRawPayload(objectMapper.writeValueAsString(request));
-            webhookEvent.setProcessedAt(LocalDateTime.now());
+            response = transactionTemplate.execute(status -> applyWebhooks(events, false, recordedIds));
+        } catch (DataIntegrityViolationException e) {
+            recentWebhookEventFilter.recordMissedDuplicate();
+            log.info("Webhook batch hit an already stored event, re-checking every event against the database");
+            recordedIds.clear();
+            response = transactionTemplate.execute(status -> applyWebhooks(events, true, recordedIds));
+        }
+        recentWebhookEventFilter.addAll(recordedIds);
+        return response;
+    }
 
-            webhookEventRepository.save(webhookEvent);
-            log.info("Successfully processed webhook for payment {} with event {}", request.getPaymentId(), request.getEvent());
+    private WebhookBatchResponse applyWebhooks(List<WebhookRequest> events, boolean checkAllStored, List<String> recordedIds) {
+        WebhookEventResult[] results = new WebhookEventResult[events.size()];
+        String[] eventExternalIds = new String[events.size()];
+        PaymentStatus[] statuses = new PaymentStatus[events.size()];
 
-            return new WebhookResponse("SUCCESS", "Webhook processed successfully");
+        for (int i = 0; i < events.size(); i++) {
+            WebhookRequest event = events.get(i);
+            Optional<String> rejection = rejectionReason(event);
+            if (rejection.isPresent()) {
+                results[i] = result(event, WebhookEventOutcome.REJECTED, rejection.get());
+                continue;
+            }
+            statuses[i] = statusForEvent(event.getEvent()).orElseThrow();
+            eventExternalIds[i] = idGenerator.generateEventId(event.getPaymentId(), event.getEvent());
+        }
+
+        // Dedupe the batch against stored events with a single query, skipping ids the filter proved new
+        Set<String> candidateIds = new HashSet<>();
+        for (String eventExternalId : eventExternalIds) {
+            if (eventExternalId != null && (checkAllStored || recentWebhookEventFilter.mightHaveSeen(eventExternalId))) {
+                candidateIds.add(eventExternalId);
+            }
+        }
+        Set<String> alreadyProcessed = candidateIds.isEmpty()
+                ? Set.of()
+                : new HashSet<>(webhookEventRepository.findExistingEventExternalIds(candidateIds));
+        if (!checkAllStored) {
+            for (String candidateId : candidateIds) {
+                recentWebhookEventFilter.recordChecked(alreadyProcessed.contains(candidateId));
+            }
+        }
+
+        // The first event for a payment decides its status, as it would if delivered one by one;
+        // later conflicting events are still recorded, but ignored
+        Map<String, Integer> accepted = new LinkedHashMap<>();
+        Map<String, PaymentStatus> statusByPaymentId = new LinkedHashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            String eventExternalId = eventExternalIds[i];
+            if (eventExternalId == null) {
+                continue;
+            }
+            if (alreadyProcessed.contains(eventExternalId) || accepted.containsKey(eventExternalId)) {
+                results[i] = result(events.get(i), WebhookEventOutcome.DUPLICATE, "Webhook already processed");
+                continue;
+            }
+            accepted.put(eventExternalId, i);
+            statusByPaymentId.putIfAbsent(events.get(i).getPaymentId(), statuses[i]);
+        }
+
+        Map<String, StatusTransitionOutcome> outcomes = paymentService.updatePaymentStatuses(statusByPaymentId);
+
+        List<WebhookEvent> webhookEvents = new ArrayList<>(accepted.size());
+        accepted.forEach((eventExternalId, i) -> {
+            WebhookRequest event = events.get(i);
+            StatusTransitionOutcome outcome = outcomes.get(event.getPaymentId());
+            if (outcome == null) {
+                results[i] = result(event, WebhookEventOutcome.REJECTED, "Payment not found: " + event.getPaymentId());
+                return;
+            }
+            webhookEvents.add(newWebhookEvent(eventExternalId, event));
+            recordedIds.add(eventExternalId);
+            if (outcome == StatusTransitionOutcome.REJECTED || statusByPaymentId.get(event.getPaymentId()) != statuses[i]) {
+                results[i] = result(event, WebhookEventOutcome.PROCESSED, IGNORED_MESSAGE);
+            } else {
+                results[i] = result(event, WebhookEventOutcome.PROCESSED, "Webhook processed successfully");
+            }
+        });
+        // One JDBC batch; a duplicate the filter missed fails it inside the retryable transaction
+        webhookEventRepository.insertAll(webhookEvents);
+
+        log.info("Processed webhook batch: {} recorded, {} skipped", webhookEvents.size(), events.size() - webhookEvents.size());
+        return new WebhookBatchResponse(Arrays.asList(results));
+    }
+
+    private WebhookEvent newWebhookEvent(String eventExternalId, WebhookRequest request) {
+        try {
+            return WebhookMapper.toWebhookEvent(eventExternalId, request, objectMapper.writeValueAsString(request));
         } catch (JsonProcessingException e) {
             log.error("Failed to serialize webhook event for payment: {}", request.getPaymentId(), e);
             throw PayliteException.internalError("Failed to process webhook");
         }
     }
 
+    private WebhookEventResult result(WebhookRequest event, WebhookEventOutcome outcome, String message) {
+        return new WebhookEventResult(event.getPaymentId(), event.getEvent(), outcome, message);
+    }
+
+    /**
+     * Why the event can never be applied, or empty when it is well-formed. Such events are
+     * refused up front rather than recorded or journaled.
+     */
+    static Optional<String> rejectionReason(WebhookRequest event) {
+        if (isBlank(event.getPaymentId()) || isBlank(event.getEvent())) {
+            return Optional.of("Payment ID and event are required");
+        }
+        if (statusForEvent(event.getEvent()).isEmpty()) {
+            return Optional.of("Unknown event type: " + event.getEvent());
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
 
     private PaymentStatus mapEventToStatus(String event) {
+        return statusForEvent(event).orElseThrow(() -> {
+            log.error("Unknown event type received: {}", event);
+            return new IllegalArgumentException("Unknown event type: " + event);
+        });
+    }
+
+    private static Optional<PaymentStatus> statusForEvent(String event) {
         return switch (event) {
-            case "payment.succeeded" -> PaymentStatus.SUCCEEDED;
-            case "payment.failed" -> PaymentStatus.FAILED;
-            default -> {
-                log.error("Unknown event type received: {}", event);
-                throw new IllegalArgumentException("Unknown event type: " + event);
-            }
+            case "payment.succeeded" -> Optional.of(PaymentStatus.SUCCEEDED);
+            case "payment.failed" -> Optional.of(PaymentStatus.FAILED);
+            default -> Optional.empty();
         };
     }
-}
\ No newline at end of file
+}
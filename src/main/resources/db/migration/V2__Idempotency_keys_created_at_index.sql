@@ -0,0 +1,2 @@
+-- Supports expiry checks and the batched purge of expired idempotency keys
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys(created_at);
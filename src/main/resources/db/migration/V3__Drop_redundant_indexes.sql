@@ -0,0 +1,5 @@
+-- The UNIQUE constraints on these columns already create an index; the explicit
+-- copies from V1 only double the index maintenance on every insert
+DROP INDEX idx_payments_payment_id ON payments;
+DROP INDEX idx_idempotency_keys_key ON idempotency_keys;
+DROP INDEX idx_webhook_events_event_external_id ON webhook_events;
@@ -0,0 +1,2 @@
+-- Pre-encoded replay response (status, content type and body); response_body is kept for rows written before this column
+ALTER TABLE idempotency_keys ADD COLUMN response_bytes BLOB NULL AFTER response_body;
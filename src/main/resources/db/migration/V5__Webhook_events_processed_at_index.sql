@@ -0,0 +1,2 @@
+-- Supports warming the webhook dedupe filter from recently processed events
+CREATE INDEX idx_webhook_events_processed_at ON webhook_events(processed_at);
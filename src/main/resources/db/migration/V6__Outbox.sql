@@ -0,0 +1,16 @@
+-- Transactional outbox: rows are written in the same transaction as the change they announce
+-- and drained in seq order by the relay
+CREATE TABLE outbox_events (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    aggregate_id VARCHAR(50) NOT NULL,
+    event_type VARCHAR(100) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+);
+
+-- Highest seq each relay has delivered; the row lock also keeps one relay active across nodes
+CREATE TABLE outbox_checkpoints (
+    relay_name VARCHAR(100) PRIMARY KEY,
+    last_seq BIGINT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
@@ -0,0 +1,6 @@
+-- Keyset pagination for payment listings, newest first. Each index ends in (created_at, id)
+-- so a filtered page is one range scan in listing order with no filesort
+CREATE INDEX idx_payments_created_at_id ON payments(created_at, id);
+CREATE INDEX idx_payments_status_created_at_id ON payments(status, created_at, id);
+CREATE INDEX idx_payments_currency_created_at_id ON payments(currency, created_at, id);
+CREATE INDEX idx_payments_customer_email_created_at_id ON payments(customer_email, created_at, id);
@@ -0,0 +1,8 @@
+-- Seqs the relay skipped over without seeing a row. Each is re-checked on later runs, so a row
+-- whose transaction commits late is still delivered; it is forgotten once no transaction can still commit it
+CREATE TABLE outbox_gaps (
+    relay_name VARCHAR(100) NOT NULL,
+    seq BIGINT NOT NULL,
+    detected_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (relay_name, seq)
+);
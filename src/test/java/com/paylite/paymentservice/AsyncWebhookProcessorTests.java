@@ -0,0 +1,238 @@
+package com.paylite.paymentservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paylite.paymentservice.common.exceptions.PayliteException;
+import com.paylite.paymentservice.modules.webhook.dto.WebhookRequest;
+import com.paylite.paymentservice.modules.webhook.dto.WebhookResponse;
+import com.paylite.paymentservice.modules.webhook.queue.WebhookJournal;
+import com.paylite.paymentservice.modules.webhook.service.AsyncWebhookProcessor;
+import com.paylite.paymentservice.modules.webhook.service.WebhookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AsyncWebhookProcessorTests {
+
+    private final WebhookService webhookService = mock(WebhookService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path dataDir;
+
+    private AsyncWebhookProcessor processor;
+
+    @AfterEach
+    void tearDown() {
+        if (processor != null) {
+            processor.stop();
+        }
+    }
+
+    @Test
+    void submit_appliesEventsForSamePaymentInOrder() throws Exception {
+        List<String> applied = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(20);
+        doAnswer(invocation -> {
+            WebhookRequest request = invocation.getArgument(0);
+            applied.add(request.getPaymentId() + ":" + invocation.getArgument(2));
+            done.countDown();
+            return null;
+        }).when(webhookService).processWebhook(any(), any(), any());
+
+        processor = newProcessor(100);
+        processor.start();
+        for (int i = 0; i < 10; i++) {
+            // PSPs resend with extra fields such as a delivery attempt; only the raw body tells them apart
+            assertEquals("ACCEPTED", processor.submit(webhook("pl_a", "payment.succeeded"), "attempt-" + i).getStatus());
+            processor.submit(webhook("pl_b", "payment.succeeded"), "attempt-" + i);
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        List<String> forA = applied.stream().filter(e -> e.startsWith("pl_a")).toList();
+        for (int i = 0; i < 10; i++) {
+            assertEquals("pl_a:attempt-" + i, forA.get(i));
+        }
+    }
+
+    @Test
+    void submit_queueFull_rejectsWithServiceUnavailable() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(webhookService).processWebhook(any(), any(), any());
+
+        processor = newProcessor(2);
+        processor.start();
+        processor.submit(webhook("pl_a", "payment.succeeded"), payload("pl_a", "payment.succeeded"));
+        processor.submit(webhook("pl_a", "payment.failed"), payload("pl_a", "payment.failed"));
+
+        PayliteException ex = assertThrows(PayliteException.class,
+                () -> processor.submit(webhook("pl_b", "payment.succeeded"), payload("pl_b", "payment.succeeded")));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatus());
+        assertEquals(2.0, meterRegistry.get("webhook.queue.depth").gauge().value());
+
+        release.countDown();
+    }
+
+    @Test
+    void start_replaysEventsLeftUnappliedByPreviousRun() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(webhookService).processWebhook(any(), any(), any());
+
+        // First run is stopped before it can apply anything, as after a crash
+        AsyncWebhookProcessor crashed = new AsyncWebhookProcessor(webhookService, new ObjectMapper(), true, dataDir, 2, 10, 3,
+                Duration.ofMillis(10), Duration.ofMillis(100), DataSize.ofMegabytes(1), meterRegistry);
+        crashed.start();
+        crashed.submit(webhook("pl_a", "payment.succeeded"), "{\"paymentId\": \"pl_a\",\n \"event\": \"payment.succeeded\"}");
+        crashed.submit(webhook("pl_b", "payment.failed"), payload("pl_b", "payment.failed"));
+        crashed.stop();
+        release.countDown();
+
+        WebhookService recovering = mock(WebhookService.class);
+        CountDownLatch replayed = new CountDownLatch(2);
+        List<String> replayedPayloads = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            if (invocation.getArgument(2) != null) {
+                replayedPayloads.add(invocation.getArgument(2));
+            }
+            replayed.countDown();
+            return new WebhookResponse("SUCCESS", "Webhook processed successfully");
+        }).when(recovering).processWebhook(any(), any(), any());
+
+        processor = new AsyncWebhookProcessor(recovering, new ObjectMapper(), true, dataDir, 2, 10, 3,
+                Duration.ofMillis(10), Duration.ofSeconds(5), DataSize.ofMegabytes(1), new SimpleMeterRegistry());
+        processor.start();
+
+        assertTrue(replayed.await(5, TimeUnit.SECONDS));
+        // the bodies are replayed exactly as they were received
+        assertTrue(replayedPayloads.contains("{\"paymentId\": \"pl_a\",\n \"event\": \"payment.succeeded\"}"));
+        assertTrue(replayedPayloads.contains(payload("pl_b", "payment.failed")));
+    }
+
+    @Test
+    void submit_missingPaymentId_isRejectedBeforeJournaling() throws Exception {
+        processor = newProcessor(10);
+        processor.start();
+
+        PayliteException ex = assertThrows(PayliteException.class,
+                () -> processor.submit(webhook(null, "payment.succeeded"), "{\"event\": \"payment.succeeded\"}"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatus());
+        assertEquals(0, Files.size(dataDir.resolve("webhooks.journal")));
+        assertEquals(0.0, meterRegistry.get("webhook.queue.depth").gauge().value());
+        verifyNoInteractions(webhookService);
+    }
+
+    @Test
+    void submit_unknownEvent_isRejectedBeforeJournaling() throws Exception {
+        processor = newProcessor(10);
+        processor.start();
+
+        PayliteException ex = assertThrows(PayliteException.class,
+                () -> processor.submit(webhook("pl_a", "payment.refunded"), payload("pl_a", "payment.refunded")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatus());
+        assertEquals("Unknown event type: payment.refunded", ex.getMessage());
+        assertEquals(0, Files.size(dataDir.resolve("webhooks.journal")));
+    }
+
+    @Test
+    void start_unappliableJournaledEntry_isDeadLetteredAndReplayMovesOn() throws Exception {
+        // Written by a version that journaled events without validating them first
+        try (WebhookJournal journal = new WebhookJournal(dataDir, new ObjectMapper())) {
+            journal.recover();
+            journal.append(null, "payment.succeeded", "{\"event\": \"payment.succeeded\"}");
+            journal.append("pl_a", "payment.bogus", payload("pl_a", "payment.bogus"));
+            journal.append("pl_b", "payment.succeeded", payload("pl_b", "payment.succeeded"));
+        }
+        CountDownLatch applied = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            applied.countDown();
+            return null;
+        }).when(webhookService).processWebhook(any(), any(), any());
+
+        processor = newProcessor(10);
+        processor.start();
+
+        assertTrue(applied.await(5, TimeUnit.SECONDS));
+        verify(webhookService).processWebhook(any(), isNull(), eq(payload("pl_b", "payment.succeeded")));
+        assertEquals(2.0, meterRegistry.get("webhook.async.dead_lettered").counter().count());
+        assertEquals(2, Files.readAllLines(dataDir.resolve("webhooks.dead")).size());
+        processor.stop();
+
+        // The checkpoint moved past the bad entries, so nothing is replayed again
+        WebhookService restarted = mock(WebhookService.class);
+        processor = new AsyncWebhookProcessor(restarted, new ObjectMapper(), true, dataDir, 2, 10, 3,
+                Duration.ofMillis(10), Duration.ofSeconds(5), DataSize.ofMegabytes(1), new SimpleMeterRegistry());
+        processor.start();
+        processor.stop();
+        verifyNoInteractions(restarted);
+    }
+
+    @Test
+    void stop_drainsQueuedEvents() throws Exception {
+        processor = newProcessor(100);
+        processor.start();
+        for (int i = 0; i < 25; i++) {
+            processor.submit(webhook("pl_" + i, "payment.succeeded"), payload("pl_" + i, "payment.succeeded"));
+        }
+
+        processor.stop();
+
+        verify(webhookService, times(25)).processWebhook(any(), any(), any());
+        assertEquals(0.0, meterRegistry.get("webhook.queue.depth").gauge().value());
+        assertThrows(PayliteException.class, () -> processor.submit(webhook("pl_x", "payment.succeeded"), payload("pl_x", "payment.succeeded")));
+    }
+
+    @Test
+    void submit_transientFailure_isRetried() throws Exception {
+        CountDownLatch applied = new CountDownLatch(1);
+        doThrow(new RuntimeException("db down"))
+                .doAnswer(invocation -> {
+                    applied.countDown();
+                    return null;
+                })
+                .when(webhookService).processWebhook(any(), any(), any());
+
+        processor = newProcessor(10);
+        processor.start();
+        processor.submit(webhook("pl_a", "payment.succeeded"), payload("pl_a", "payment.succeeded"));
+
+        assertTrue(applied.await(5, TimeUnit.SECONDS));
+        verify(webhookService, times(2)).processWebhook(any(), any(), any());
+    }
+
+    private AsyncWebhookProcessor newProcessor(int capacity) {
+        return new AsyncWebhookProcessor(webhookService, new ObjectMapper(), true, dataDir, 2, capacity, 3,
+                Duration.ofMillis(10), Duration.ofSeconds(5), DataSize.ofMegabytes(1), meterRegistry);
+    }
+
+    private String payload(String paymentId, String event) {
+        return "{\"paymentId\":\"" + paymentId + "\",\"event\":\"" + event + "\"}";
+    }
+
+    private WebhookRequest webhook(String paymentId, String event) {
+        WebhookRequest request = new WebhookRequest();
+        request.setPaymentId(paymentId);
+        request.setEvent(event);
+        return request;
+    }
+}
@@ -0,0 +1,50 @@
+package com.paylite.paymentservice;
+
+import com.paylite.paymentservice.common.utilities.BoundedPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPoolTests {
+
+    @Test
+    void release_resetsAndReusesObjects() {
+        AtomicInteger created = new AtomicInteger();
+        BoundedPool<StringBuilder> pool = new BoundedPool<>(2,
+                () -> new StringBuilder("#" + created.incrementAndGet()), sb -> sb.setLength(0));
+
+        StringBuilder first = pool.acquire();
+        first.append("-used");
+        pool.release(first);
+
+        StringBuilder reused = pool.acquire();
+        assertSame(first, reused);
+        assertEquals("", reused.toString());
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void release_beyondMaxIdle_dropsTheExtraObjects() {
+        AtomicInteger created = new AtomicInteger();
+        BoundedPool<Object> pool = new BoundedPool<>(2, () -> {
+            created.incrementAndGet();
+            return new Object();
+        }, object -> { });
+
+        List<Object> borrowed = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            borrowed.add(pool.acquire());
+        }
+        borrowed.forEach(pool::release);
+        for (int i = 0; i < 4; i++) {
+            pool.acquire();
+        }
+
+        // Only two of the four released objects were kept idle, so two more had to be created
+        assertEquals(6, created.get());
+    }
+}
@@ -0,0 +1,80 @@
+package com.paylite.paymentservice;
+
+import com.paylite.paymentservice.common.concurrency.ConnectionPoolLimitFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolLimitFilterTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void doFilter_underLimit_passesThrough() throws Exception {
+        ConnectionPoolLimitFilter filter = new ConnectionPoolLimitFilter(2, Duration.ofMillis(50), meterRegistry);
+        AtomicInteger calls = new AtomicInteger();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request(), response, (req, res) -> calls.incrementAndGet());
+
+        assertEquals(1, calls.get());
+        assertEquals(200, response.getStatus());
+        assertEquals(0.0, meterRegistry.get("http.db.limiter.in_use").gauge().value());
+    }
+
+    @Test
+    void doFilter_allPermitsHeld_shedsWithServiceUnavailable() throws Exception {
+        ConnectionPoolLimitFilter filter = new ConnectionPoolLimitFilter(1, Duration.ofMillis(50), meterRegistry);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain blocking = (req, res) -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> holder = executor.submit(() -> {
+                filter.doFilter(request(), new MockHttpServletResponse(), blocking);
+                return null;
+            });
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+            MockHttpServletResponse shed = new MockHttpServletResponse();
+            filter.doFilter(request(), shed, (req, res) -> fail("should not reach the chain"));
+
+            assertEquals(503, shed.getStatus());
+            assertEquals("1", shed.getHeader("Retry-After"));
+            assertTrue(shed.getContentAsString().contains("Service is busy"));
+            assertEquals(1.0, meterRegistry.get("http.db.limiter.rejected").counter().count());
+
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        }
+
+        MockHttpServletResponse after = new MockHttpServletResponse();
+        filter.doFilter(request(), after, (req, res) -> { });
+        assertEquals(200, after.getStatus());
+    }
+
+    private MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/payments/pl_1");
+        request.setServletPath("/api/v1/payments/pl_1");
+        return request;
+    }
+}
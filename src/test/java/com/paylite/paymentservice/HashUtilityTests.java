@@ -1,16 +1,25 @@
 package com.paylite.paymentservice;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.paylite.paymentservice.common.utilities.HashUtility;
+import com.paylite.paymentservice.modules.payment.dto.CreatePaymentRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 
 class HashUtilityTests {
 
@@ -55,4 +64,60 @@ class HashUtilityTests {
         // Optional: decide behavior if input is null
         assertThrows(NullPointerException.class, () -> hashUtility.generateSha256Hash(null));
     }
+
+    @Test
+    void sha256_bytesAndByteBuffer_returnRawDigest() throws Exception {
+        byte[] input = "test-input".getBytes(StandardCharsets.UTF_8);
+        byte[] expected = MessageDigest.getInstance("SHA-256").digest(input);
+        ByteBuffer buffer = ByteBuffer.wrap(input);
+
+        assertArrayEquals(expected, hashUtility.sha256(input));
+        assertArrayEquals(expected, hashUtility.sha256(buffer));
+        assertEquals(32, hashUtility.sha256(input).length);
+        assertEquals(input.length, buffer.remaining());
+    }
+
+    @Test
+    void sha256Sink_jacksonOutput_matchesHashOfSerializedString() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        CreatePaymentRequest request = new CreatePaymentRequest();
+        request.setAmount(new BigDecimal("10.50"));
+        request.setCurrency("USD");
+        request.setCustomerEmail("a@example.com");
+        request.setReference("ref-1");
+
+        HashUtility.Sha256Sink sink = hashUtility.newSha256Sink();
+        objectMapper.writeValue(sink, request);
+
+        assertEquals(hashUtility.generateSha256Hash(objectMapper.writeValueAsString(request)), sink.digestBase64());
+    }
+
+    @Test
+    void sha256Sink_afterDigest_rejectsWrites() {
+        HashUtility.Sha256Sink sink = hashUtility.newSha256Sink();
+        sink.write(1);
+        sink.digest();
+
+        assertThrows(IllegalStateException.class, () -> sink.write(2));
+    }
+
+    @Test
+    void generateSha256Hash_concurrentCallers_reuseDigestsSafely() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 2000; i++) {
+                String input = "input-" + i;
+                futures.add(executor.submit(() -> {
+                    byte[] expected = MessageDigest.getInstance("SHA-256").digest(input.getBytes(StandardCharsets.UTF_8));
+                    return Base64.getEncoder().encodeToString(expected).equals(hashUtility.generateSha256Hash(input));
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
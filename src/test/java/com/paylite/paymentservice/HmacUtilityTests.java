@@ -5,6 +5,18 @@ import com.paylite.paymentservice.common.utilities.HmacUtility;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class HmacUtilityTests {
@@ -67,4 +79,59 @@ class HmacUtilityTests {
         boolean valid = hmacUtility.verifyHmacSignature(signature, data, "wrong-secret");
         assertFalse(valid, "Signature should be invalid with wrong secret");
     }
+
+    @Test
+    void computeHmacSha256_matchesRfc4231Vector() {
+        byte[] hmac = hmacUtility.computeHmacSha256("what do ya want for nothing?".getBytes(StandardCharsets.UTF_8), "Jefe");
+
+        assertEquals("5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843", HexFormat.of().formatHex(hmac));
+    }
+
+    @Test
+    void verifyHmacSignature_bytesAndByteBuffer_matchStringVariant() {
+        String data = "{\n  \"paymentId\": \"pl_1\"\n}";
+        String signature = hmacUtility.computeHmacSha256(data, secret);
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        assertTrue(hmacUtility.verifyHmacSignature(signature, bytes, secret));
+        assertTrue(hmacUtility.verifyHmacSignature(signature, buffer, secret));
+        // the caller's buffer is not consumed
+        assertEquals(bytes.length, buffer.remaining());
+    }
+
+    @Test
+    void verifyHmacSignature_malformedOrMissingSignature_returnsFalse() {
+        assertFalse(hmacUtility.verifyHmacSignature("not base64 !!", "test-data", secret));
+        assertFalse(hmacUtility.verifyHmacSignature(null, "test-data", secret));
+        assertFalse(hmacUtility.verifyHmacSignature("", "test-data", secret));
+    }
+
+    @Test
+    void verifyHmacSignature_concurrentCallersAcrossSecrets_neverMixUpKeys() throws Exception {
+        List<String> secrets = List.of("secret-a", "secret-b", "secret-c");
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 2000; i++) {
+                String key = secrets.get(i % secrets.size());
+                String data = "payload-" + i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    String signature = Base64.getEncoder().encodeToString(
+                            new HmacUtility().computeHmacSha256(data.getBytes(StandardCharsets.UTF_8), key));
+                    return hmacUtility.verifyHmacSignature(signature, data, key)
+                            && !hmacUtility.verifyHmacSignature(signature, data, key + "-other");
+                }));
+            }
+            start.countDown();
+
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
@@ -54,4 +54,12 @@ class IdGeneratorTests {
 
         assertNotEquals(eventId1, eventId2, "Event IDs for different event types should be different");
     }
+
+    @Test
+    void sortableMode_withoutExplicitNodeId_failsStartup() {
+        assertThrows(IllegalStateException.class, () -> new IdGenerator(IdGenerator.Mode.SORTABLE, -1));
+        assertThrows(IllegalStateException.class, () -> new IdGenerator(IdGenerator.Mode.SORTABLE, 1024));
+        assertTrue(new IdGenerator(IdGenerator.Mode.SORTABLE, 7).generatePaymentId().startsWith("pl_"));
+        assertTrue(new IdGenerator(IdGenerator.Mode.RANDOM, -1).generatePaymentId().startsWith("pl_"));
+    }
 }
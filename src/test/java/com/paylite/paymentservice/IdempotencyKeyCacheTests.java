@@ -0,0 +1,70 @@
+package com.paylite.paymentservice;
+
+import com.paylite.paymentservice.modules.payment.cache.CachedIdempotencyKey;
+import com.paylite.paymentservice.modules.payment.cache.IdempotencyKeyCache;
+import com.paylite.paymentservice.modules.payment.dto.StoredResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyKeyCacheTests {
+
+    private IdempotencyKeyCache cache;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new IdempotencyKeyCache(100, Duration.ofMinutes(5), meterRegistry);
+    }
+
+    @Test
+    void put_thenGet_returnsEntry() {
+        StoredResponse response = StoredResponse.json(201, "{\"paymentId\":\"pl_1\"}".getBytes(StandardCharsets.UTF_8));
+        cache.put("idem-1", "hash-1", response);
+
+        Optional<CachedIdempotencyKey> entry = cache.get("idem-1");
+
+        assertTrue(entry.isPresent());
+        assertEquals("hash-1", entry.get().getRequestHash());
+        assertSame(response, entry.get().getResponse());
+    }
+
+    @Test
+    void get_unknownKey_returnsEmpty() {
+        assertTrue(cache.get("missing").isEmpty());
+    }
+
+    @Test
+    void invalidate_removesEntry() {
+        cache.put("idem-2", "hash-2", StoredResponse.json(201, new byte[0]));
+
+        cache.invalidate("idem-2");
+
+        assertTrue(cache.get("idem-2").isEmpty());
+    }
+
+    @Test
+    void hitsAndMisses_arePublishedAsMetrics() {
+        cache.put("idem-3", "hash-3", StoredResponse.json(201, new byte[0]));
+        cache.get("idem-3");
+        cache.get("missing");
+
+        double hits = meterRegistry.get("cache.gets")
+                .tag("cache", IdempotencyKeyCache.CACHE_NAME).tag("result", "hit")
+                .functionCounter().count();
+        double misses = meterRegistry.get("cache.gets")
+                .tag("cache", IdempotencyKeyCache.CACHE_NAME).tag("result", "miss")
+                .functionCounter().count();
+
+        assertEquals(1, hits);
+        assertEquals(1, misses);
+        assertNotNull(meterRegistry.find("cache.evictions").tag("cache", IdempotencyKeyCache.CACHE_NAME).meter());
+    }
+}
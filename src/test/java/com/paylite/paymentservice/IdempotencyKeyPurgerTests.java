@@ -0,0 +1,69 @@
+package com.paylite.paymentservice;
+
+import com.paylite.paymentservice.modules.payment.repository.IdempotencyKeyRepository;
+import com.paylite.paymentservice.modules.payment.service.IdempotencyKeyPurger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyKeyPurgerTests {
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyKeyPurger purger;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        purger = new IdempotencyKeyPurger(idempotencyKeyRepository, Duration.ofHours(24), 100, 5, meterRegistry);
+    }
+
+    @Test
+    void purgeExpiredKeys_stopsWhenBatchIsNotFull() {
+        when(idempotencyKeyRepository.deleteExpiredBatch(any(LocalDateTime.class), eq(100)))
+                .thenReturn(100, 100, 42);
+        when(idempotencyKeyRepository.estimateRowCount()).thenReturn(1234L);
+
+        purger.purgeExpiredKeys();
+
+        verify(idempotencyKeyRepository, times(3)).deleteExpiredBatch(any(LocalDateTime.class), eq(100));
+        assertEquals(242, meterRegistry.get("idempotency.keys.purged").counter().count());
+        assertEquals(1234, meterRegistry.get("idempotency.keys.table.rows").gauge().value());
+    }
+
+    @Test
+    void purgeExpiredKeys_isCappedPerRun() {
+        when(idempotencyKeyRepository.deleteExpiredBatch(any(LocalDateTime.class), eq(100))).thenReturn(100);
+
+        purger.purgeExpiredKeys();
+
+        verify(idempotencyKeyRepository, times(5)).deleteExpiredBatch(any(LocalDateTime.class), eq(100));
+        assertEquals(500, meterRegistry.get("idempotency.keys.purged").counter().count());
+    }
+
+    @Test
+    void purgeExpiredKeys_usesRetentionCutoff() {
+        when(idempotencyKeyRepository.deleteExpiredBatch(any(LocalDateTime.class), eq(100))).thenReturn(0);
+
+        LocalDateTime before = LocalDateTime.now().minusHours(24);
+        purger.purgeExpiredKeys();
+        LocalDateTime after = LocalDateTime.now().minusHours(24);
+
+        verify(idempotencyKeyRepository).deleteExpiredBatch(
+                argThat(cutoff -> !cutoff.isBefore(before) && !cutoff.isAfter(after)), eq(100));
+    }
+}
@@ -1,11 +1,16 @@
 package com.paylite.paymentservice;
 
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.paylite.paymentservice.common.exceptions.PayliteException;
-import com.paylite.paymentservice.common.utilities.HashUtility;
+import com.paylite.paymentservice.modules.payment.cache.CachedIdempotencyKey;
+import com.paylite.paymentservice.modules.payment.cache.IdempotencyKeyCache;
+import com.paylite.paymentservice.modules.payment.dto.CreatePaymentRequest;
+import com.paylite.paymentservice.modules.payment.dto.IdempotencyLookupResult;
+import com.paylite.paymentservice.modules.payment.dto.StoredResponse;
 import com.paylite.paymentservice.modules.payment.entity.IdempotencyKey;
+import com.paylite.paymentservice.modules.payment.enums.IdempotencyLookupStatus;
+import com.paylite.paymentservice.modules.payment.fingerprint.PaymentRequestFingerprinter;
+import com.paylite.paymentservice.modules.payment.fingerprint.RequestFingerprint;
 import com.paylite.paymentservice.modules.payment.repository.IdempotencyKeyRepository;
 import com.paylite.paymentservice.modules.payment.service.IdempotencyService;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,7 +21,15 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -25,14 +38,17 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class IdempotencyServiceTests {
 
+    private static final StoredResponse CACHED =
+            StoredResponse.json(201, "cached-response".getBytes(StandardCharsets.UTF_8));
+
     @Mock
     private IdempotencyKeyRepository idempotencyKeyRepository;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private PaymentRequestFingerprinter fingerprinter;
 
     @Mock
-    private HashUtility hashUtility;
+    private IdempotencyKeyCache idempotencyKeyCache;
 
     @InjectMocks
     private IdempotencyService idempotencyService;
@@ -42,23 +58,17 @@ class IdempotencyServiceTests {
 
     @BeforeEach
     void setUp() {
-        // Mockito injects mocks
+        // Mockito injects mocks; retention is a @Value field
+        ReflectionTestUtils.setField(idempotencyService, "retention", Duration.ofHours(24));
     }
 
     @Test
-    void generateRequestHash_success_returnsHash() throws Exception {
-        Object request = new Object();
-        String json = "{\"foo\":\"bar\"}";
-        String expectedHash = "hash-value";
-
-        when(objectMapper.writeValueAsString(request)).thenReturn(json);
-        when(hashUtility.generateSha256Hash(json)).thenReturn(expectedHash);
+    void fingerprint_delegatesToFingerprinter() {
+        CreatePaymentRequest request = new CreatePaymentRequest();
+        RequestFingerprint fingerprint = RequestFingerprint.of("v1$hash");
+        when(fingerprinter.fingerprint(request)).thenReturn(fingerprint);
 
-        String result = idempotencyService.generateRequestHash(request);
-
-        assertEquals(expectedHash, result);
-        verify(objectMapper).writeValueAsString(request);
-        verify(hashUtility).generateSha256Hash(json);
+        assertSame(fingerprint, idempotencyService.fingerprint(request));
     }
 
     @Test
@@ -66,14 +76,14 @@ class IdempotencyServiceTests {
         String key = "idem-1";
         IdempotencyKey entity = new IdempotencyKey();
         entity.setKey(key);
-        entity.setResponseBody("cached-response");
+        entity.setResponseBytes(CACHED.encode());
 
         when(idempotencyKeyRepository.findByKey(key)).thenReturn(Optional.of(entity));
 
-        Optional<String> result = idempotencyService.getCachedResponse(key);
+        Optional<StoredResponse> result = idempotencyService.getCachedResponse(key);
 
         assertTrue(result.isPresent());
-        assertEquals("cached-response", result.get());
+        assertArrayEquals(CACHED.getBody(), result.get().getBody());
         verify(idempotencyKeyRepository).findByKey(key);
     }
 
@@ -82,7 +92,7 @@ class IdempotencyServiceTests {
         String key = "idem-none";
         when(idempotencyKeyRepository.findByKey(key)).thenReturn(Optional.empty());
 
-        Optional<String> result = idempotencyService.getCachedResponse(key);
+        Optional<StoredResponse> result = idempotencyService.getCachedResponse(key);
 
         assertFalse(result.isPresent());
         verify(idempotencyKeyRepository).findByKey(key);
@@ -92,63 +102,182 @@ class IdempotencyServiceTests {
     void storeIdempotencyKey_savesEntity() {
         String idKey = "idem-store";
         String requestHash = "req-hash";
-        String response = "{\"ok\":true}";
+        StoredResponse response = StoredResponse.json(201, "{\"ok\":true}".getBytes(StandardCharsets.UTF_8));
 
-        // No need to stub save; just verify it's called with correct values
+        // No need to stub the insert; just verify it's called with correct values
         idempotencyService.storeIdempotencyKey(idKey, requestHash, response);
 
-        verify(idempotencyKeyRepository).save(keyCaptor.capture());
+        verify(idempotencyKeyRepository).insert(keyCaptor.capture());
         IdempotencyKey captured = keyCaptor.getValue();
         assertEquals(idKey, captured.getKey());
         assertEquals(requestHash, captured.getRequestHash());
-        assertEquals(response, captured.getResponseBody());
+        assertArrayEquals(response.encode(), captured.getResponseBytes());
+        assertNull(captured.getResponseBody());
+        // outside a transaction the near cache is populated immediately
+        verify(idempotencyKeyCache).put(idKey, requestHash, response);
     }
 
     @Test
-    void isDuplicateRequest_trueWhenExistsDifferentHash() {
-        String key = "idem-dup";
-        String hash = "h1";
-        when(idempotencyKeyRepository.existsByKeyAndRequestHashNot(key, hash)).thenReturn(true);
+    void lookup_absentKey_returnsAbsent() {
+        when(idempotencyKeyRepository.findByKey("idem-new")).thenReturn(Optional.empty());
 
-        boolean result = idempotencyService.isDuplicateRequest(key, hash);
+        IdempotencyLookupResult result = idempotencyService.lookup("idem-new", RequestFingerprint.of("h5"));
 
-        assertTrue(result);
-        verify(idempotencyKeyRepository).existsByKeyAndRequestHashNot(key, hash);
+        assertEquals(IdempotencyLookupStatus.ABSENT, result.getStatus());
+        assertNull(result.getCachedResponse());
+        verify(idempotencyKeyRepository).findByKey("idem-new");
+        verifyNoMoreInteractions(idempotencyKeyRepository);
     }
 
     @Test
-    void isDuplicateRequest_falseWhenNotExistsDifferentHash() {
-        String key = "idem-notdup";
-        String hash = "h2";
-        when(idempotencyKeyRepository.existsByKeyAndRequestHashNot(key, hash)).thenReturn(false);
+    void lookup_sameHash_returnsMatchWithCachedResponse() {
+        IdempotencyKey entity = new IdempotencyKey();
+        entity.setKey("idem-match");
+        entity.setRequestHash("h6");
+        entity.setResponseBytes(CACHED.encode());
+        when(idempotencyKeyRepository.findByKey("idem-match")).thenReturn(Optional.of(entity));
+
+        IdempotencyLookupResult result = idempotencyService.lookup("idem-match", RequestFingerprint.of("h6"));
+
+        assertEquals(IdempotencyLookupStatus.MATCH, result.getStatus());
+        assertArrayEquals(CACHED.getBody(), result.getCachedResponse().getBody());
+        verify(idempotencyKeyRepository).findByKey("idem-match");
+        verifyNoMoreInteractions(idempotencyKeyRepository);
+    }
+
+    @Test
+    void lookup_differentHash_returnsConflict() {
+        IdempotencyKey entity = new IdempotencyKey();
+        entity.setKey("idem-conflict");
+        entity.setRequestHash("original-hash");
+        entity.setResponseBytes(CACHED.encode());
+        when(idempotencyKeyRepository.findByKey("idem-conflict")).thenReturn(Optional.of(entity));
 
-        boolean result = idempotencyService.isDuplicateRequest(key, hash);
+        IdempotencyLookupResult result = idempotencyService.lookup("idem-conflict", RequestFingerprint.of("other-hash"));
 
-        assertFalse(result);
-        verify(idempotencyKeyRepository).existsByKeyAndRequestHashNot(key, hash);
+        assertEquals(IdempotencyLookupStatus.CONFLICT, result.getStatus());
+        assertNull(result.getCachedResponse());
+        verify(idempotencyKeyRepository).findByKey("idem-conflict");
+        verifyNoMoreInteractions(idempotencyKeyRepository);
     }
 
     @Test
-    void hasSameRequest_trueWhenExistsSameHash() {
-        String key = "idem-same";
-        String hash = "h3";
-        when(idempotencyKeyRepository.existsByKeyAndRequestHash(key, hash)).thenReturn(true);
+    void lookup_nearCacheHit_skipsRepository() {
+        when(idempotencyKeyCache.get("idem-cached"))
+                .thenReturn(Optional.of(new CachedIdempotencyKey("h7", CACHED)));
 
-        boolean result = idempotencyService.hasSameRequest(key, hash);
+        IdempotencyLookupResult result = idempotencyService.lookup("idem-cached", RequestFingerprint.of("h7"));
 
-        assertTrue(result);
-        verify(idempotencyKeyRepository).existsByKeyAndRequestHash(key, hash);
+        assertEquals(IdempotencyLookupStatus.MATCH, result.getStatus());
+        assertArrayEquals(CACHED.getBody(), result.getCachedResponse().getBody());
+        verifyNoInteractions(idempotencyKeyRepository);
     }
 
     @Test
-    void hasSameRequest_falseWhenNotExistsSameHash() {
-        String key = "idem-diff";
-        String hash = "h4";
-        when(idempotencyKeyRepository.existsByKeyAndRequestHash(key, hash)).thenReturn(false);
+    void lookup_nearCacheHitDifferentHash_returnsConflict() {
+        when(idempotencyKeyCache.get("idem-cached"))
+                .thenReturn(Optional.of(new CachedIdempotencyKey("h8", CACHED)));
 
-        boolean result = idempotencyService.hasSameRequest(key, hash);
+        IdempotencyLookupResult result = idempotencyService.lookup("idem-cached", RequestFingerprint.of("other"));
 
-        assertFalse(result);
-        verify(idempotencyKeyRepository).existsByKeyAndRequestHash(key, hash);
+        assertEquals(IdempotencyLookupStatus.CONFLICT, result.getStatus());
+        verifyNoInteractions(idempotencyKeyRepository);
+    }
+
+    @Test
+    void lookup_databaseHit_populatesNearCache() {
+        IdempotencyKey entity = new IdempotencyKey();
+        entity.setKey("idem-db");
+        entity.setRequestHash("h9");
+        entity.setResponseBytes(CACHED.encode());
+        when(idempotencyKeyRepository.findByKey("idem-db")).thenReturn(Optional.of(entity));
+
+        idempotencyService.lookup("idem-db", RequestFingerprint.of("h9"));
+
+        verify(idempotencyKeyCache).put(eq("idem-db"), eq("h9"),
+                argThat(response -> Arrays.equals(CACHED.getBody(), response.getBody())));
+    }
+
+    @Test
+    void lookup_expiredKey_deletesRowAndReturnsAbsent() {
+        IdempotencyKey entity = new IdempotencyKey();
+        entity.setKey("idem-old");
+        entity.setRequestHash("h10");
+        entity.setResponseBytes(CACHED.encode());
+        entity.setCreatedAt(LocalDateTime.now().minusHours(25));
+        when(idempotencyKeyRepository.findByKey("idem-old")).thenReturn(Optional.of(entity));
+
+        IdempotencyLookupResult result = idempotencyService.lookup("idem-old", RequestFingerprint.of("h10"));
+
+        assertEquals(IdempotencyLookupStatus.ABSENT, result.getStatus());
+        verify(idempotencyKeyRepository).deleteExpiredByKey(eq("idem-old"), any(LocalDateTime.class));
+        verify(idempotencyKeyCache, never()).put(anyString(), anyString(), any());
+    }
+
+    @Test
+    void lookup_keyWithinRetention_isNotExpired() {
+        IdempotencyKey entity = new IdempotencyKey();
+        entity.setKey("idem-recent");
+        entity.setRequestHash("h11");
+        entity.setResponseBytes(CACHED.encode());
+        entity.setCreatedAt(LocalDateTime.now().minusHours(23));
+        when(idempotencyKeyRepository.findByKey("idem-recent")).thenReturn(Optional.of(entity));
+
+        IdempotencyLookupResult result = idempotencyService.lookup("idem-recent", RequestFingerprint.of("h11"));
+
+        assertEquals(IdempotencyLookupStatus.MATCH, result.getStatus());
+        verify(idempotencyKeyRepository, never()).deleteExpiredByKey(anyString(), any());
+    }
+
+    @Test
+    void lookupAll_resolvesCacheMissesWithOneQuery() {
+        when(idempotencyKeyCache.get("k-cached"))
+                .thenReturn(Optional.of(new CachedIdempotencyKey("h-cached", CACHED)));
+        IdempotencyKey stored = new IdempotencyKey();
+        stored.setKey("k-stored");
+        stored.setRequestHash("h-other");
+        stored.setResponseBytes(CACHED.encode());
+        when(idempotencyKeyRepository.findByKeyIn(anyCollection())).thenReturn(List.of(stored));
+
+        Map<String, RequestFingerprint> hashes = new LinkedHashMap<>();
+        hashes.put("k-cached", RequestFingerprint.of("h-cached"));
+        hashes.put("k-stored", RequestFingerprint.of("h-stored"));
+        hashes.put("k-new", RequestFingerprint.of("h-new"));
+
+        Map<String, IdempotencyLookupResult> results = idempotencyService.lookupAll(hashes);
+
+        assertEquals(IdempotencyLookupStatus.MATCH, results.get("k-cached").getStatus());
+        assertEquals(IdempotencyLookupStatus.CONFLICT, results.get("k-stored").getStatus());
+        assertEquals(IdempotencyLookupStatus.ABSENT, results.get("k-new").getStatus());
+        verify(idempotencyKeyRepository).findByKeyIn(List.of("k-stored", "k-new"));
+        verifyNoMoreInteractions(idempotencyKeyRepository);
+    }
+
+    @Test
+    void storeIdempotencyKeys_savesAllAndPopulatesCache() {
+        IdempotencyKey key = IdempotencyKey.builder().key("k-b").requestHash("h-b").responseBytes(CACHED.encode()).build();
+
+        idempotencyService.storeIdempotencyKeys(List.of(key));
+
+        verify(idempotencyKeyRepository).insertAll(List.of(key));
+        verify(idempotencyKeyCache).put(eq("k-b"), eq("h-b"),
+                argThat(response -> response.getStatus() == 201 && Arrays.equals(CACHED.getBody(), response.getBody())));
+    }
+
+    @Test
+    void lookup_legacyRowWithJsonBody_replaysAsCreated() {
+        IdempotencyKey entity = new IdempotencyKey();
+        entity.setKey("idem-legacy");
+        entity.setRequestHash("h12");
+        entity.setResponseBody("{\"paymentId\":\"pl_legacy\"}");
+        when(idempotencyKeyRepository.findByKey("idem-legacy")).thenReturn(Optional.of(entity));
+
+        IdempotencyLookupResult result = idempotencyService.lookup("idem-legacy", RequestFingerprint.of("h12"));
+
+        assertEquals(IdempotencyLookupStatus.MATCH, result.getStatus());
+        assertEquals(201, result.getCachedResponse().getStatus());
+        assertEquals("application/json", result.getCachedResponse().getContentType());
+        assertEquals("{\"paymentId\":\"pl_legacy\"}",
+                new String(result.getCachedResponse().getBody(), StandardCharsets.UTF_8));
     }
 }
@@ -0,0 +1,204 @@
+package com.paylite.paymentservice;
+
+import com.paylite.paymentservice.modules.outbox.dto.OutboxGap;
+import com.paylite.paymentservice.modules.outbox.dto.OutboxMessage;
+import com.paylite.paymentservice.modules.outbox.repository.OutboxRepository;
+import com.paylite.paymentservice.modules.outbox.service.OutboxRelay;
+import com.paylite.paymentservice.modules.outbox.sink.InMemoryOutboxSink;
+import com.paylite.paymentservice.modules.outbox.sink.OutboxSink;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTests {
+
+    private OutboxRepository outboxRepository;
+    private TransactionTemplate transactionTemplate;
+    private InMemoryOutboxSink sink;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository = mock(OutboxRepository.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        sink = new InMemoryOutboxSink(100);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void relay_deliversInSeqOrderThenCheckpointsAndDeletes() {
+        when(outboxRepository.lockCheckpoint("payment-events")).thenReturn(10L);
+        when(outboxRepository.findAfter(10L, 500)).thenReturn(List.of(message(11, Duration.ZERO), message(12, Duration.ZERO)));
+
+        relay(List.of(sink)).relay();
+
+        assertEquals(List.of(11L, 12L), sink.recent().stream().map(OutboxMessage::getSeq).toList());
+        verify(outboxRepository).saveCheckpoint("payment-events", 12L);
+        verify(outboxRepository).deleteAll(List.of(11L, 12L));
+        assertEquals(2, meterRegistry.counter("outbox.relay.delivered").count());
+    }
+
+    @Test
+    void relay_sinkFailure_leavesCheckpointForRedelivery() throws IOException {
+        OutboxSink failing = mock(OutboxSink.class);
+        when(failing.name()).thenReturn("failing");
+        doThrow(new IOException("disk full")).when(failing).deliver(anyList());
+        when(outboxRepository.lockCheckpoint("payment-events")).thenReturn(0L);
+        when(outboxRepository.findAfter(0L, 500)).thenReturn(List.of(message(1, Duration.ZERO)));
+
+        relay(List.of(failing)).relay();
+
+        verify(outboxRepository, never()).saveCheckpoint(anyString(), anyLong());
+        verify(outboxRepository, never()).deleteAll(anyCollection());
+        assertEquals(1, meterRegistry.counter("outbox.relay.failures").count());
+    }
+
+    @Test
+    void relay_fullBatch_keepsDrainingUntilCaughtUp() {
+        OutboxRelay relay = new OutboxRelay(outboxRepository, List.of(sink), transactionTemplate,
+                true, 2, 10, Duration.ofSeconds(5), Duration.ofMinutes(5), Duration.ofSeconds(30), meterRegistry);
+        when(outboxRepository.lockCheckpoint("payment-events")).thenReturn(0L, 2L);
+        when(outboxRepository.findAfter(0L, 2)).thenReturn(List.of(message(1, Duration.ZERO), message(2, Duration.ZERO)));
+        when(outboxRepository.findAfter(2L, 2)).thenReturn(List.of(message(3, Duration.ZERO)));
+
+        relay.relay();
+
+        assertEquals(3, sink.recent().size());
+        verify(outboxRepository).saveCheckpoint("payment-events", 3L);
+    }
+
+    @Test
+    void relay_recentGap_waitsForTheMissingSeq() {
+        when(outboxRepository.lockCheckpoint("payment-events")).thenReturn(0L);
+        // seq 2 may belong to a transaction that has not committed yet
+        when(outboxRepository.findAfter(0L, 500)).thenReturn(List.of(message(1, Duration.ZERO), message(3, Duration.ZERO)));
+
+        relay(List.of(sink)).relay();
+
+        assertEquals(List.of(1L), sink.recent().stream().map(OutboxMessage::getSeq).toList());
+        verify(outboxRepository).saveCheckpoint("payment-events", 1L);
+    }
+
+    @Test
+    void relay_settledGap_isSkipped() {
+        Duration old = Duration.ofMinutes(1);
+        when(outboxRepository.lockCheckpoint("payment-events")).thenReturn(0L);
+        when(outboxRepository.findAfter(0L, 500)).thenReturn(List.of(message(1, old), message(3, old)));
+
+        relay(List.of(sink)).relay();
+
+        assertEquals(List.of(1L, 3L), sink.recent().stream().map(OutboxMessage::getSeq).toList());
+        verify(outboxRepository).saveCheckpoint("payment-events", 3L);
+        verify(outboxRepository).recordGaps("payment-events", List.of(2L));
+        verify(outboxRepository).deleteAll(List.of(1L, 3L));
+    }
+
+    @Test
+    void relay_lateCommittingGapRow_isDeliveredOnALaterRun() {
+        when(outboxRepository.lockCheckpoint("payment-events")).thenReturn(3L);
+        // seq 2 was skipped as a gap, then its transaction committed
+        when(outboxRepository.findGaps("payment-events"))
+                .thenReturn(List.of(new OutboxGap(2, LocalDateTime.now().minusSeconds(20))));
+        when(outboxRepository.findBySeqs(List.of(2L))).thenReturn(List.of(message(2, Duration.ofSeconds(30))));
+
+        relay(List.of(sink)).relay();
+
+        assertEquals(List.of(2L), sink.recent().stream().map(OutboxMessage::getSeq).toList());
+        verify(outboxRepository).deleteAll(Set.of(2L));
+        verify(outboxRepository).deleteGaps("payment-events", Set.of(2L));
+        verify(outboxRepository, never()).saveCheckpoint(anyString(), anyLong());
+        assertEquals(1, meterRegistry.counter("outbox.relay.late_delivered").count());
+    }
+
+    @Test
+    void relay_gapStillMissing_isKeptUntilTheRetentionPasses() {
+        when(outboxRepository.lockCheckpoint("payment-events")).thenReturn(9L);
+        when(outboxRepository.findGaps("payment-events")).thenReturn(List.of(
+                new OutboxGap(4, LocalDateTime.now().minusMinutes(1)),
+                new OutboxGap(5, LocalDateTime.now().minusMinutes(10))));
+        // the database decides which gaps have outlived the retention
+        when(outboxRepository.deleteGapsOlderThan("payment-events", Duration.ofMinutes(5))).thenReturn(1);
+
+        relay(List.of(sink)).relay();
+
+        verify(outboxRepository).deleteGapsOlderThan("payment-events", Duration.ofMinutes(5));
+        assertEquals(1, meterRegistry.get("outbox.relay.open_gaps").gauge().value());
+        assertEquals(1, meterRegistry.counter("outbox.relay.gaps_expired").count());
+    }
+
+    @Test
+    void relay_jvmClockBehindDatabase_stillMovesPastASettledGap() {
+        // created_at is three hours ahead of the JVM, but the database says the rows are a minute old
+        LocalDateTime databaseTime = LocalDateTime.now().plusHours(3);
+        when(outboxRepository.lockCheckpoint("payment-events")).thenReturn(0L);
+        when(outboxRepository.findAfter(0L, 500)).thenReturn(List.of(
+                message(1, databaseTime, Duration.ofMinutes(1)), message(3, databaseTime, Duration.ofMinutes(1))));
+
+        relay(List.of(sink)).relay();
+
+        assertEquals(List.of(1L, 3L), sink.recent().stream().map(OutboxMessage::getSeq).toList());
+        verify(outboxRepository).recordGaps("payment-events", List.of(2L));
+        assertEquals(60, meterRegistry.get("outbox.relay.lag").gauge().value());
+    }
+
+    @Test
+    void relay_jvmClockAheadOfDatabase_waitsAtAFreshGapAndKeepsRecordedGaps() {
+        // created_at and detected_at are three hours behind the JVM, yet only just written
+        LocalDateTime databaseTime = LocalDateTime.now().minusHours(3);
+        when(outboxRepository.lockCheckpoint("payment-events")).thenReturn(10L);
+        when(outboxRepository.findGaps("payment-events")).thenReturn(List.of(new OutboxGap(5, databaseTime)));
+        when(outboxRepository.findAfter(10L, 500)).thenReturn(List.of(
+                message(11, databaseTime, Duration.ZERO), message(13, databaseTime, Duration.ofSeconds(1))));
+
+        relay(List.of(sink)).relay();
+
+        assertEquals(List.of(11L), sink.recent().stream().map(OutboxMessage::getSeq).toList());
+        verify(outboxRepository, never()).recordGaps(anyString(), anyList());
+        verify(outboxRepository, never()).deleteGaps(eq("payment-events"), argThat(seqs -> !seqs.isEmpty()));
+        assertEquals(1, meterRegistry.get("outbox.relay.open_gaps").gauge().value());
+        assertEquals(0, meterRegistry.counter("outbox.relay.gaps_expired").count());
+    }
+
+    @Test
+    void constructor_rejectsGapRetentionWithinTheTransactionTimeout() {
+        assertThrows(IllegalStateException.class, () -> new OutboxRelay(outboxRepository, List.of(sink), transactionTemplate,
+                true, 500, 10, Duration.ofSeconds(5), Duration.ofSeconds(30), Duration.ofSeconds(30), meterRegistry));
+        assertThrows(IllegalStateException.class, () -> new OutboxRelay(outboxRepository, List.of(sink), transactionTemplate,
+                true, 500, 10, Duration.ofSeconds(5), Duration.ofMinutes(5), Duration.ZERO, meterRegistry));
+    }
+
+    @Test
+    void relay_withoutSinks_leavesOutboxUntouched() {
+        relay(List.of()).relay();
+
+        verifyNoInteractions(outboxRepository, transactionTemplate);
+    }
+
+    private OutboxRelay relay(List<OutboxSink> sinks) {
+        return new OutboxRelay(outboxRepository, sinks, transactionTemplate, true, 500, 10,
+                Duration.ofSeconds(5), Duration.ofMinutes(5), Duration.ofSeconds(30), meterRegistry);
+    }
+
+    private OutboxMessage message(long seq, Duration age) {
+        return message(seq, LocalDateTime.now().minus(age), age);
+    }
+
+    private OutboxMessage message(long seq, LocalDateTime createdAt, Duration age) {
+        return new OutboxMessage(seq, "pl_" + seq, "payment.status_changed",
+                "{\"paymentId\":\"pl_" + seq + "\",\"status\":\"SUCCEEDED\"}", createdAt, age);
+    }
+}
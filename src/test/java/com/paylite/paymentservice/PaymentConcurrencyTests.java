@@ -0,0 +1,158 @@
+package com.paylite.paymentservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paylite.paymentservice.common.utilities.IdGenerator;
+import com.paylite.paymentservice.modules.outbox.service.IOutboxService;
+import com.paylite.paymentservice.modules.payment.cache.PaymentResponseCache;
+import com.paylite.paymentservice.modules.payment.dto.CreatePaymentRequest;
+import com.paylite.paymentservice.modules.payment.dto.CreatePaymentResponse;
+import com.paylite.paymentservice.modules.payment.dto.IdempotencyLookupResult;
+import com.paylite.paymentservice.modules.payment.dto.StoredResponse;
+import com.paylite.paymentservice.modules.payment.entity.Payment;
+import com.paylite.paymentservice.modules.payment.fingerprint.RequestFingerprint;
+import com.paylite.paymentservice.modules.payment.notification.PaymentStatusWaiters;
+import com.paylite.paymentservice.modules.payment.repository.PaymentRepository;
+import com.paylite.paymentservice.modules.payment.service.IdempotencyService;
+import com.paylite.paymentservice.modules.payment.service.PaymentService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Fires hundreds of identical createPayment calls at once, against one node and against
+ * two nodes sharing the same (simulated) idempotency_keys unique index.
+ */
+class PaymentConcurrencyTests {
+
+    private static final int REQUESTS = 300;
+    private static final String IDEMPOTENCY_KEY = "idem-storm";
+    private static final String REQUEST_HASH = "hash-storm";
+
+    // Simulated idempotency_keys table: key -> {requestHash, responseBody}
+    private final Map<String, String[]> idempotencyTable = new ConcurrentHashMap<>();
+    private final AtomicInteger paymentInserts = new AtomicInteger();
+    private final AtomicInteger paymentIds = new AtomicInteger();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private IdempotencyService idempotencyService;
+    private PaymentRepository paymentRepository;
+    private IdGenerator idGenerator;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = mock(IdempotencyService.class);
+        paymentRepository = mock(PaymentRepository.class);
+        idGenerator = mock(IdGenerator.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+
+        when(idempotencyService.fingerprint(any())).thenReturn(RequestFingerprint.of(REQUEST_HASH));
+        when(idempotencyService.lookup(anyString(), any(RequestFingerprint.class))).thenAnswer(invocation -> {
+            String[] row = idempotencyTable.get(invocation.<String>getArgument(0));
+            if (row == null) {
+                return IdempotencyLookupResult.absent();
+            }
+            return invocation.<RequestFingerprint>getArgument(1).matches(row[0])
+                    ? IdempotencyLookupResult.match(StoredResponse.json(201, row[1].getBytes(StandardCharsets.UTF_8)))
+                    : IdempotencyLookupResult.conflict();
+        });
+        doAnswer(invocation -> {
+            String[] row = {invocation.getArgument(1),
+                    new String(invocation.<StoredResponse>getArgument(2).getBody(), StandardCharsets.UTF_8)};
+            if (idempotencyTable.putIfAbsent(invocation.getArgument(0), row) != null) {
+                throw new DataIntegrityViolationException("Duplicate entry for key 'key'");
+            }
+            return null;
+        }).when(idempotencyService).storeIdempotencyKey(anyString(), anyString(), any(StoredResponse.class));
+
+        when(idGenerator.generatePaymentId()).thenAnswer(invocation -> "pl_" + paymentIds.incrementAndGet());
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> {
+            paymentInserts.incrementAndGet();
+            // widen the window in which concurrent callers can overlap
+            Thread.sleep(20);
+            return invocation.getArgument(0);
+        });
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void identicalConcurrentRequests_singleNode_createOnePayment() throws Exception {
+        PaymentService node = newNode();
+
+        Set<String> paymentIdsSeen = fire(List.of(node));
+
+        assertEquals(1, paymentInserts.get());
+        assertEquals(Set.of("pl_1"), paymentIdsSeen);
+    }
+
+    @Test
+    void identicalConcurrentRequests_acrossNodes_createOnePayment() throws Exception {
+        PaymentService nodeA = newNode();
+        PaymentService nodeB = newNode();
+
+        Set<String> paymentIdsSeen = fire(List.of(nodeA, nodeB));
+
+        assertEquals(1, paymentInserts.get());
+        assertEquals(1, paymentIdsSeen.size());
+        assertTrue(idempotencyTable.get(IDEMPOTENCY_KEY)[1].contains(paymentIdsSeen.iterator().next()));
+    }
+
+    private PaymentService newNode() {
+        return new PaymentService(paymentRepository, idempotencyService, idGenerator, transactionTemplate,
+                new PaymentResponseCache(100, Duration.ofSeconds(30), new SimpleMeterRegistry()), objectMapper,
+                mock(IOutboxService.class), mock(PaymentStatusWaiters.class));
+    }
+
+    private Set<String> fire(List<PaymentService> nodes) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<StoredResponse>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < REQUESTS; i++) {
+                PaymentService node = nodes.get(i % nodes.size());
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return node.createPayment(newRequest(), IDEMPOTENCY_KEY);
+                }));
+            }
+            start.countDown();
+
+            Set<String> seen = new HashSet<>();
+            for (Future<StoredResponse> future : futures) {
+                byte[] body = future.get(30, TimeUnit.SECONDS).getBody();
+                seen.add(objectMapper.readValue(body, CreatePaymentResponse.class).getPaymentId());
+            }
+            return seen;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private CreatePaymentRequest newRequest() {
+        CreatePaymentRequest request = new CreatePaymentRequest();
+        request.setAmount(new BigDecimal("25.00"));
+        request.setCurrency("USD");
+        request.setCustomerEmail("storm@example.com");
+        request.setReference("order-storm");
+        return request;
+    }
+}
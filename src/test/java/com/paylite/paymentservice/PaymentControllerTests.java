@@ -3,14 +3,38 @@ package com.paylite.paymentservice;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.paylite.paymentservice.modules.payment.PaymentController;
+import com.paylite.paymentservice.modules.payment.dto.BatchCreatePaymentItem;
+import com.paylite.paymentservice.modules.payment.dto.BatchCreatePaymentRequest;
+import com.paylite.paymentservice.modules.payment.dto.BatchCreatePaymentResponse;
+import com.paylite.paymentservice.modules.payment.dto.BatchPaymentResult;
 import com.paylite.paymentservice.modules.payment.dto.CreatePaymentRequest;
 import com.paylite.paymentservice.modules.payment.dto.CreatePaymentResponse;
 import com.paylite.paymentservice.modules.payment.dto.PaymentResponse;
+import com.paylite.paymentservice.modules.payment.dto.StoredResponse;
+import com.paylite.paymentservice.modules.payment.enums.BatchItemOutcome;
+import com.paylite.paymentservice.modules.payment.enums.ExportFormat;
+import com.paylite.paymentservice.modules.payment.notification.PaymentStatusWaiters;
+import com.paylite.paymentservice.modules.payment.service.IPaymentExportService;
 import com.paylite.paymentservice.modules.payment.service.PaymentService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -18,13 +42,17 @@ class PaymentControllerTests {
 
     private PaymentController controller;
     private PaymentService paymentService;
+    private IPaymentExportService paymentExportService;
     private ObjectMapper objectMapper;
 
     @BeforeEach
     void setUp() {
         paymentService = mock(PaymentService.class);
+        paymentExportService = mock(IPaymentExportService.class);
         objectMapper = new ObjectMapper();
-        controller = new PaymentController(paymentService);
+        controller = new PaymentController(paymentService,
+                new PaymentStatusWaiters(100, 10, Duration.ofSeconds(60), new SimpleMeterRegistry()),
+                paymentExportService);
     }
 
     @Test
@@ -35,16 +63,40 @@ class PaymentControllerTests {
         request.setCustomerEmail("test@example.com");
         request.setReference("ref123");
 
-        CreatePaymentResponse serviceResponse = new CreatePaymentResponse("pl_12345", "PENDING");
+        byte[] body = new ObjectMapper().writeValueAsBytes(new CreatePaymentResponse("pl_12345", "PENDING"));
 
-        when(paymentService.createPayment(request, "idem123")).thenReturn(serviceResponse);
+        when(paymentService.createPayment(request, "idem123")).thenReturn(StoredResponse.json(201, body));
 
-        var responseEntity = controller.createPayment("api-key", "idem123", request);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.createPayment("api-key", "idem123", request, response);
 
-        assertEquals(201, responseEntity.getStatusCodeValue());
-        assertNotNull(responseEntity.getBody());
-        assertEquals("pl_12345", responseEntity.getBody().getPaymentId());
-        assertEquals("PENDING", responseEntity.getBody().getStatus());
+        assertEquals(201, response.getStatus());
+        assertEquals("application/json", response.getContentType());
+        assertArrayEquals(body, response.getContentAsByteArray());
+        CreatePaymentResponse parsed = new ObjectMapper().readValue(response.getContentAsByteArray(), CreatePaymentResponse.class);
+        assertEquals("pl_12345", parsed.getPaymentId());
+        assertEquals("PENDING", parsed.getStatus());
+    }
+
+    @Test
+    void createPayments_returnsPerItemResults() {
+        CreatePaymentRequest request = new CreatePaymentRequest();
+        request.setAmount(new java.math.BigDecimal("10.00"));
+        request.setCurrency("USD");
+        request.setCustomerEmail("batch@example.com");
+        request.setReference("ref-batch");
+        BatchCreatePaymentRequest batch = new BatchCreatePaymentRequest(
+                List.of(new BatchCreatePaymentItem("idem-b1", request)));
+
+        BatchCreatePaymentResponse serviceResponse = new BatchCreatePaymentResponse(List.of(
+                new BatchPaymentResult("idem-b1", BatchItemOutcome.CREATED, "pl_b1", "PENDING", "Payment created")));
+        when(paymentService.createPayments(batch)).thenReturn(serviceResponse);
+
+        var responseEntity = controller.createPayments("api-key", batch);
+
+        assertEquals(200, responseEntity.getStatusCode().value());
+        assertEquals(1, responseEntity.getBody().getResults().size());
+        assertEquals("pl_b1", responseEntity.getBody().getResults().get(0).getPaymentId());
     }
 
     @Test
@@ -55,7 +107,7 @@ class PaymentControllerTests {
 
         when(paymentService.getPayment("pl_12345")).thenReturn(serviceResponse);
 
-        var responseEntity = controller.getPayment("api-key", "pl_12345");
+        var responseEntity = controller.getPayment("api-key", "pl_12345", null);
 
         assertEquals(200, responseEntity.getStatusCodeValue());
         assertNotNull(responseEntity.getBody());
@@ -63,6 +115,55 @@ class PaymentControllerTests {
         assertEquals("SUCCEEDED", responseEntity.getBody().getStatus());
     }
 
+    @Test
+    void getPayment_returnsStrongETag() {
+        PaymentResponse serviceResponse = new PaymentResponse();
+        serviceResponse.setPaymentId("pl_etag");
+        serviceResponse.setStatus("PENDING");
+        serviceResponse.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 12, 0));
+        when(paymentService.getPayment("pl_etag")).thenReturn(serviceResponse);
+
+        var responseEntity = controller.getPayment("api-key", "pl_etag", null);
+
+        String eTag = responseEntity.getHeaders().getETag();
+        assertNotNull(eTag);
+        assertTrue(eTag.startsWith("\"PENDING-"));
+    }
+
+    @Test
+    void getPayment_ifNoneMatchCurrent_returnsNotModifiedWithoutBody() {
+        PaymentResponse serviceResponse = new PaymentResponse();
+        serviceResponse.setPaymentId("pl_etag");
+        serviceResponse.setStatus("PENDING");
+        serviceResponse.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 12, 0));
+        when(paymentService.getPayment("pl_etag")).thenReturn(serviceResponse);
+        String eTag = serviceResponse.getETag();
+
+        var notModified = controller.getPayment("api-key", "pl_etag", "\"stale\", " + eTag);
+
+        assertEquals(304, notModified.getStatusCode().value());
+        assertNull(notModified.getBody());
+        assertEquals(eTag, notModified.getHeaders().getETag());
+    }
+
+    @Test
+    void getPayment_ifNoneMatchAfterStatusChange_returnsNewBody() {
+        PaymentResponse before = new PaymentResponse();
+        before.setStatus("PENDING");
+        before.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 12, 0));
+        PaymentResponse after = new PaymentResponse();
+        after.setPaymentId("pl_etag");
+        after.setStatus("SUCCEEDED");
+        after.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 12, 5));
+        when(paymentService.getPayment("pl_etag")).thenReturn(after);
+
+        var responseEntity = controller.getPayment("api-key", "pl_etag", before.getETag());
+
+        assertEquals(200, responseEntity.getStatusCode().value());
+        assertEquals("SUCCEEDED", responseEntity.getBody().getStatus());
+        assertNotEquals(before.getETag(), responseEntity.getHeaders().getETag());
+    }
+
     @Test
     void createPayment_withInvalidRequest_throwsException() {
         CreatePaymentRequest invalidRequest = new CreatePaymentRequest(); // missing required fields
@@ -72,8 +173,62 @@ class PaymentControllerTests {
                 .thenThrow(new RuntimeException("Validation failed"));
 
         RuntimeException ex = assertThrows(RuntimeException.class,
-                () -> controller.createPayment("api-key", "idem123", invalidRequest));
+                () -> controller.createPayment("api-key", "idem123", invalidRequest, new MockHttpServletResponse()));
 
         assertEquals("Validation failed", ex.getMessage());
     }
+
+    @Test
+    void waitForSettlement_settledPayment_answersWithoutParking() {
+        PaymentResponse payment = new PaymentResponse("pl_1", new java.math.BigDecimal("10.00"), "USD", "ref",
+                "SUCCEEDED", LocalDateTime.now());
+        when(paymentService.getPayment("pl_1")).thenReturn(payment);
+
+        DeferredResult<PaymentResponse> result = controller.waitForSettlement("api-key", "pl_1", 30);
+
+        assertSame(payment, result.getResult());
+    }
+
+    @Test
+    void exportPayments_gzipAccepted_compressesTheStream() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2026, 1, 1, 0, 0);
+        when(paymentExportService.exportPayments(eq(from), eq(from.plusDays(1)), isNull(), eq(ExportFormat.CSV), any()))
+                .thenAnswer(invocation -> {
+                    try (OutputStream out = invocation.<IPaymentExportService.ExportTarget>getArgument(4).open()) {
+                        out.write("payment_id\r\n".getBytes(StandardCharsets.UTF_8));
+                    }
+                    return 0L;
+                });
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.exportPayments("api-key", from, from.plusDays(1), null, ExportFormat.CSV, "gzip, deflate", response);
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("text/csv;charset=UTF-8", response.getContentType());
+        assertEquals("attachment; filename=\"payments-2026-01-01-2026-01-02.csv\"",
+                response.getHeader(HttpHeaders.CONTENT_DISPOSITION));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertEquals("payment_id\r\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void exportPayments_gzipWithZeroQuality_isNotCompressed() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2026, 1, 1, 0, 0);
+        when(paymentExportService.exportPayments(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            invocation.<IPaymentExportService.ExportTarget>getArgument(4).open().close();
+            return 0L;
+        });
+
+        for (String acceptEncoding : List.of("gzip;q=0", "br, gzip; q=0.0", "*;q=0", "identity")) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            controller.exportPayments("api-key", from, from.plusDays(1), null, ExportFormat.NDJSON, acceptEncoding, response);
+            assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING), acceptEncoding);
+        }
+        for (String acceptEncoding : List.of("GZIP", "br;q=1, gzip;q=0.5", "*")) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            controller.exportPayments("api-key", from, from.plusDays(1), null, ExportFormat.NDJSON, acceptEncoding, response);
+            assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING), acceptEncoding);
+        }
+    }
 }
@@ -0,0 +1,148 @@
+package com.paylite.paymentservice;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.paylite.paymentservice.common.exceptions.PayliteException;
+import com.paylite.paymentservice.modules.payment.dto.PaymentSummary;
+import com.paylite.paymentservice.modules.payment.enums.ExportFormat;
+import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+import com.paylite.paymentservice.modules.payment.repository.PaymentExportRepository;
+import com.paylite.paymentservice.modules.payment.service.PaymentExportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PaymentExportServiceTests {
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime TO = FROM.plusDays(1);
+
+    private PaymentExportRepository paymentExportRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private PaymentExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        paymentExportRepository = mock(PaymentExportRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        exportService = new PaymentExportService(paymentExportRepository, objectMapper, Duration.ofDays(31), meterRegistry);
+    }
+
+    @Test
+    void exportPayments_ndjson_writesOneObjectPerLine() throws IOException {
+        streamRows(payment("pl_1", "ref-1"), payment("pl_2", "ref-2"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.exportPayments(FROM, TO, PaymentStatus.SUCCEEDED, ExportFormat.NDJSON, () -> out);
+
+        assertEquals(2, rows);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = new ObjectMapper().readTree(lines[0]);
+        assertEquals("pl_1", first.get("paymentId").asText());
+        assertEquals("2026-01-01T10:00:00", first.get("createdAt").asText());
+        assertFalse(first.has("id"));
+        assertEquals(2, meterRegistry.get("payment.export.rows").tag("format", "ndjson").counter().count());
+        verify(paymentExportRepository).forEachCreatedBetween(eq(FROM), eq(TO), eq(PaymentStatus.SUCCEEDED), any());
+    }
+
+    @Test
+    void exportPayments_csv_writesHeaderAndQuotesOnlyWhenNeeded() throws IOException {
+        streamRows(payment("pl_1", "plain"), payment("pl_2", "has, comma \"and quote\""));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportPayments(FROM, TO, null, ExportFormat.CSV, () -> out);
+
+        List<String> lines = List.of(out.toString(StandardCharsets.UTF_8).split("\r\n"));
+        assertEquals("payment_id,amount,currency,customer_email,reference,status,created_at,updated_at", lines.get(0));
+        assertEquals("pl_1,10.50,USD,a@example.com,plain,SUCCEEDED,2026-01-01T10:00,2026-01-01T10:05", lines.get(1));
+        assertEquals("pl_2,10.50,USD,a@example.com,\"has, comma \"\"and quote\"\"\",SUCCEEDED,2026-01-01T10:00,2026-01-01T10:05",
+                lines.get(2));
+    }
+
+    @Test
+    void exportPayments_csv_neutralisesFormulaLikeText() throws IOException {
+        PaymentSummary negative = payment("pl_3", "-refund");
+        negative.setAmount(new BigDecimal("-1.00"));
+        streamRows(payment("pl_1", "=HYPERLINK(\"http://x\")"), payment("pl_2", "@SUM(A1)"), negative);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportPayments(FROM, TO, null, ExportFormat.CSV, () -> out);
+
+        List<String> lines = List.of(out.toString(StandardCharsets.UTF_8).split("\r\n"));
+        assertEquals("pl_1,10.50,USD,a@example.com,\"'=HYPERLINK(\"\"http://x\"\")\",SUCCEEDED,2026-01-01T10:00,2026-01-01T10:05",
+                lines.get(1));
+        assertEquals("pl_2,10.50,USD,a@example.com,'@SUM(A1),SUCCEEDED,2026-01-01T10:00,2026-01-01T10:05", lines.get(2));
+        assertEquals("pl_3,-1.00,USD,a@example.com,'-refund,SUCCEEDED,2026-01-01T10:00,2026-01-01T10:05", lines.get(3));
+    }
+
+    @Test
+    void exportPayments_emptyRange_stillWritesCsvHeader() throws IOException {
+        streamRows();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(0, exportService.exportPayments(FROM, TO, null, ExportFormat.CSV, () -> out));
+        assertTrue(out.toString(StandardCharsets.UTF_8).startsWith("payment_id,"));
+    }
+
+    @Test
+    void exportPayments_invalidRange_failsBeforeOpeningTheResponse() {
+        OutputStream out = mock(OutputStream.class);
+
+        assertThrows(PayliteException.class,
+                () -> exportService.exportPayments(TO, FROM, null, ExportFormat.NDJSON, () -> out));
+        assertThrows(PayliteException.class,
+                () -> exportService.exportPayments(FROM, FROM.plusDays(32), null, ExportFormat.NDJSON, () -> out));
+        verifyNoInteractions(out, paymentExportRepository);
+    }
+
+    @Test
+    void exportPayments_clientDisconnect_surfacesTheIOException() {
+        streamRows(payment("pl_1", "ref-1"));
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        IOException e = assertThrows(IOException.class,
+                () -> exportService.exportPayments(FROM, TO, null, ExportFormat.CSV, () -> broken));
+        assertEquals("Broken pipe", e.getMessage());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void streamRows(PaymentSummary... payments) {
+        when(paymentExportRepository.forEachCreatedBetween(any(), any(), any(), any())).thenAnswer(invocation -> {
+            Consumer<PaymentSummary> action = invocation.getArgument(3);
+            for (PaymentSummary payment : payments) {
+                action.accept(payment);
+            }
+            return (long) payments.length;
+        });
+    }
+
+    private PaymentSummary payment(String paymentId, String reference) {
+        return new PaymentSummary(UUID.randomUUID(), paymentId, new BigDecimal("10.50"), "USD", "a@example.com",
+                reference, "SUCCEEDED", LocalDateTime.of(2026, 1, 1, 10, 0), LocalDateTime.of(2026, 1, 1, 10, 5));
+    }
+}
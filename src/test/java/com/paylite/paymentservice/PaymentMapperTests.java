@@ -0,0 +1,89 @@
+package com.paylite.paymentservice;
+
+import com.paylite.paymentservice.modules.payment.dto.CreatePaymentRequest;
+import com.paylite.paymentservice.modules.payment.dto.CreatePaymentResponse;
+import com.paylite.paymentservice.modules.payment.dto.PaymentResponse;
+import com.paylite.paymentservice.modules.payment.entity.Payment;
+import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+import com.paylite.paymentservice.modules.payment.mapper.PaymentMapper;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parity checks against the ModelMapper configuration the service used before the hand-written mappers.
+ */
+class PaymentMapperTests {
+
+    private final ModelMapper modelMapper = previousModelMapper();
+
+    @Test
+    void toPaymentResponse_matchesPreviousModelMapperOutput() {
+        for (PaymentStatus status : PaymentStatus.values()) {
+            Payment payment = payment(status);
+
+            assertEquals(modelMapper.map(payment, PaymentResponse.class), PaymentMapper.toPaymentResponse(payment));
+        }
+    }
+
+    @Test
+    void toPaymentResponse_sparseEntity_matchesPreviousModelMapperOutput() {
+        Payment payment = new Payment();
+        payment.setPaymentId("pl_sparse");
+
+        assertEquals(modelMapper.map(payment, PaymentResponse.class), PaymentMapper.toPaymentResponse(payment));
+    }
+
+    @Test
+    void toCreatePaymentResponse_matchesPreviousReplayOutput() {
+        Payment payment = payment(PaymentStatus.PENDING);
+        CreatePaymentResponse expected = modelMapper.map(
+                new CreatePaymentResponse(payment.getPaymentId(), PaymentStatus.PENDING.name()), CreatePaymentResponse.class);
+
+        assertEquals(expected, PaymentMapper.toCreatePaymentResponse(payment));
+    }
+
+    @Test
+    void toPayment_copiesRequestAndStartsPending() {
+        CreatePaymentRequest request = new CreatePaymentRequest();
+        request.setAmount(new BigDecimal("99.95"));
+        request.setCurrency("EUR");
+        request.setCustomerEmail("erin@example.com");
+        request.setReference("ref-map");
+
+        Payment payment = PaymentMapper.toPayment("pl_new", request);
+
+        assertEquals("pl_new", payment.getPaymentId());
+        assertEquals(new BigDecimal("99.95"), payment.getAmount());
+        assertEquals("EUR", payment.getCurrency());
+        assertEquals("erin@example.com", payment.getCustomerEmail());
+        assertEquals("ref-map", payment.getReference());
+        assertEquals(PaymentStatus.PENDING, payment.getStatus());
+    }
+
+    private Payment payment(PaymentStatus status) {
+        Payment payment = new Payment();
+        payment.setPaymentId("pl_map");
+        payment.setAmount(new BigDecimal("12.50"));
+        payment.setCurrency("USD");
+        payment.setCustomerEmail("dave@example.com");
+        payment.setReference("r-1");
+        payment.setStatus(status);
+        payment.setUpdatedAt(LocalDateTime.of(2025, 3, 1, 10, 30, 15));
+        return payment;
+    }
+
+    private static ModelMapper previousModelMapper() {
+        ModelMapper modelMapper = new ModelMapper();
+        modelMapper.getConfiguration()
+                .setMatchingStrategy(MatchingStrategies.STRICT)
+                .setFieldMatchingEnabled(true)
+                .setSkipNullEnabled(true);
+        return modelMapper;
+    }
+}
@@ -0,0 +1,94 @@
+package com.paylite.paymentservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paylite.paymentservice.common.utilities.HashUtility;
+import com.paylite.paymentservice.modules.payment.dto.CreatePaymentRequest;
+import com.paylite.paymentservice.modules.payment.fingerprint.PaymentRequestFingerprinter;
+import com.paylite.paymentservice.modules.payment.fingerprint.RequestFingerprint;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentRequestFingerprinterTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HashUtility hashUtility = new HashUtility();
+    private final PaymentRequestFingerprinter fingerprinter = new PaymentRequestFingerprinter(hashUtility, objectMapper);
+
+    @Test
+    void fingerprint_isVersioned() {
+        String value = fingerprinter.fingerprint(request("10.00", "USD", "a@example.com", "ref-1")).getValue();
+
+        assertTrue(value.startsWith(PaymentRequestFingerprinter.CURRENT_VERSION + "$"));
+    }
+
+    @Test
+    void fingerprint_normalizesAmountScaleCurrencyAndEmail() {
+        RequestFingerprint canonical = fingerprinter.fingerprint(request("10.00", "USD", "a@example.com", "ref-1"));
+        RequestFingerprint variant = fingerprinter.fingerprint(request("10.0", "usd", " A@Example.COM ", "ref-1"));
+
+        assertEquals(canonical, variant);
+        assertTrue(variant.matches(canonical.getValue()));
+    }
+
+    @Test
+    void fingerprint_differentFields_differ() {
+        RequestFingerprint base = fingerprinter.fingerprint(request("10.00", "USD", "a@example.com", "ref-1"));
+
+        assertNotEquals(base, fingerprinter.fingerprint(request("10.01", "USD", "a@example.com", "ref-1")));
+        assertNotEquals(base, fingerprinter.fingerprint(request("10.00", "EUR", "a@example.com", "ref-1")));
+        assertNotEquals(base, fingerprinter.fingerprint(request("10.00", "USD", "b@example.com", "ref-1")));
+        // references are identifiers chosen by the merchant, so their case is kept
+        assertNotEquals(base, fingerprinter.fingerprint(request("10.00", "USD", "a@example.com", "REF-1")));
+    }
+
+    @Test
+    void fingerprint_fieldBoundariesAreUnambiguous() {
+        RequestFingerprint first = fingerprinter.fingerprint(request("1", "USD", "a@example.co", "mref"));
+        RequestFingerprint second = fingerprinter.fingerprint(request("1", "USD", "a@example.com", "ref"));
+
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void matches_legacyJsonHash_ofSameRequest() throws Exception {
+        CreatePaymentRequest request = request("25.00", "USD", "a@example.com", "ref-legacy");
+        String legacyHash = hashUtility.generateSha256Hash(objectMapper.writeValueAsString(request));
+
+        assertTrue(fingerprinter.fingerprint(request).matches(legacyHash));
+    }
+
+    @Test
+    void matches_legacyJsonHash_ofDifferentRequest_isConflict() throws Exception {
+        String legacyHash = hashUtility.generateSha256Hash(
+                objectMapper.writeValueAsString(request("25.00", "USD", "a@example.com", "ref-a")));
+
+        assertFalse(fingerprinter.fingerprint(request("25.00", "USD", "a@example.com", "ref-b")).matches(legacyHash));
+    }
+
+    @Test
+    void matches_unknownVersion_isConflict() {
+        RequestFingerprint fingerprint = fingerprinter.fingerprint(request("1", "USD", "a@example.com", "ref"));
+
+        assertFalse(fingerprint.matches("v9$" + fingerprint.getValue().substring(3)));
+    }
+
+    @Test
+    void of_valueOnly_matchesExactValueOnly() {
+        RequestFingerprint fingerprint = RequestFingerprint.of("v1$abc");
+
+        assertTrue(fingerprint.matches("v1$abc"));
+        assertFalse(fingerprint.matches("abc"));
+    }
+
+    private CreatePaymentRequest request(String amount, String currency, String email, String reference) {
+        CreatePaymentRequest request = new CreatePaymentRequest();
+        request.setAmount(new BigDecimal(amount));
+        request.setCurrency(currency);
+        request.setCustomerEmail(email);
+        request.setReference(reference);
+        return request;
+    }
+}
@@ -0,0 +1,86 @@
+package com.paylite.paymentservice;
+
+import com.paylite.paymentservice.modules.payment.cache.PaymentResponseCache;
+import com.paylite.paymentservice.modules.payment.dto.PaymentResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentResponseCacheTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PaymentResponseCache cache = new PaymentResponseCache(100, Duration.ofMinutes(1), meterRegistry);
+
+    @Test
+    void get_concurrentMissesOnSameId_loadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            List<Future<Optional<PaymentResponse>>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("pl_hot", id -> {
+                        loads.incrementAndGet();
+                        sleep(50);
+                        return new PaymentResponse(id, null, null, null, "PENDING", null);
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<Optional<PaymentResponse>> future : futures) {
+                assertEquals("pl_hot", future.get(5, TimeUnit.SECONDS).orElseThrow().getPaymentId());
+            }
+        }
+
+        assertEquals(1, loads.get());
+        assertTrue(meterRegistry.get("cache.hit.ratio").tag("cache", "payments").gauge().value() > 0.9);
+    }
+
+    @Test
+    void get_emptyLoad_isNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertTrue(cache.get("pl_missing", id -> {
+            loads.incrementAndGet();
+            return null;
+        }).isEmpty());
+        cache.get("pl_missing", id -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateAfterCommit_withoutTransaction_evictsImmediately() {
+        cache.get("pl_1", id -> new PaymentResponse(id, null, null, null, "PENDING", null));
+
+        cache.invalidateAfterCommit(List.of("pl_1"));
+
+        assertEquals("SUCCEEDED", cache.get("pl_1", id -> new PaymentResponse(id, null, null, null, "SUCCEEDED", null))
+                .orElseThrow().getStatus());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -4,26 +4,57 @@ package com.paylite.paymentservice;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.paylite.paymentservice.common.exceptions.PayliteException;
 import com.paylite.paymentservice.common.utilities.IdGenerator;
+import com.paylite.paymentservice.modules.outbox.service.IOutboxService;
+import com.paylite.paymentservice.modules.payment.cache.PaymentResponseCache;
+import com.paylite.paymentservice.modules.payment.dto.BatchCreatePaymentItem;
+import com.paylite.paymentservice.modules.payment.dto.BatchCreatePaymentRequest;
+import com.paylite.paymentservice.modules.payment.dto.BatchCreatePaymentResponse;
+import com.paylite.paymentservice.modules.payment.dto.BatchPaymentResult;
 import com.paylite.paymentservice.modules.payment.dto.CreatePaymentRequest;
 import com.paylite.paymentservice.modules.payment.dto.CreatePaymentResponse;
+import com.paylite.paymentservice.modules.payment.dto.IdempotencyLookupResult;
+import com.paylite.paymentservice.modules.payment.dto.PaymentCursor;
+import com.paylite.paymentservice.modules.payment.dto.PaymentPage;
 import com.paylite.paymentservice.modules.payment.dto.PaymentResponse;
+import com.paylite.paymentservice.modules.payment.dto.PaymentSearchCriteria;
+import com.paylite.paymentservice.modules.payment.dto.PaymentSummary;
+import com.paylite.paymentservice.modules.payment.dto.StoredResponse;
 import com.paylite.paymentservice.modules.payment.entity.Payment;
+import com.paylite.paymentservice.modules.payment.enums.BatchItemOutcome;
 import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+import com.paylite.paymentservice.modules.payment.enums.StatusTransitionOutcome;
+import com.paylite.paymentservice.modules.payment.fingerprint.RequestFingerprint;
+import com.paylite.paymentservice.modules.payment.notification.PaymentStatusWaiters;
 import com.paylite.paymentservice.modules.payment.repository.PaymentRepository;
 import com.paylite.paymentservice.modules.payment.service.IdempotencyService;
 import com.paylite.paymentservice.modules.payment.service.PaymentService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -41,7 +72,20 @@ class PaymentServiceTests {
     private IdGenerator idGenerator;
 
     @Mock
-    private ModelMapper modelMapper;
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private IOutboxService outboxService;
+
+    @Mock
+    private PaymentStatusWaiters paymentStatusWaiters;
+
+    @Spy
+    private PaymentResponseCache paymentResponseCache =
+            new PaymentResponseCache(100, Duration.ofSeconds(30), new SimpleMeterRegistry());
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
 
     @InjectMocks
     private PaymentService paymentService;
@@ -49,8 +93,6 @@ class PaymentServiceTests {
     @Captor
     private ArgumentCaptor<Payment> paymentCaptor;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
     @BeforeEach
     void setUp() {
         // nothing to do; mocks injected by Mockito
@@ -67,9 +109,8 @@ class PaymentServiceTests {
 
         String idempotencyKey = "idem-1";
         String requestHash = "hash-1";
-        when(idempotencyService.generateRequestHash(req)).thenReturn(requestHash);
-        when(idempotencyService.hasSameRequest(idempotencyKey, requestHash)).thenReturn(false);
-        when(idempotencyService.isDuplicateRequest(idempotencyKey, requestHash)).thenReturn(false);
+        when(idempotencyService.fingerprint(req)).thenReturn(RequestFingerprint.of(requestHash));
+        when(idempotencyService.lookup(idempotencyKey, RequestFingerprint.of(requestHash))).thenReturn(IdempotencyLookupResult.absent());
 
         when(idGenerator.generatePaymentId()).thenReturn("pl_abcdef01");
 
@@ -82,9 +123,11 @@ class PaymentServiceTests {
         saved.setStatus(PaymentStatus.PENDING);
 
         when(paymentRepository.save(any(Payment.class))).thenReturn(saved);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
 
         // when
-        CreatePaymentResponse resp = paymentService.createPayment(req, idempotencyKey);
+        CreatePaymentResponse resp = readCreated(paymentService.createPayment(req, idempotencyKey));
 
         // then
         assertNotNull(resp);
@@ -101,7 +144,8 @@ class PaymentServiceTests {
         assertEquals(PaymentStatus.PENDING, captured.getStatus());
 
         // verify idempotency store called with response JSON
-        verify(idempotencyService).storeIdempotencyKey(eq(idempotencyKey), eq(requestHash), anyString());
+        verify(idempotencyService).storeIdempotencyKey(eq(idempotencyKey), eq(requestHash),
+                argThat(response -> response.getStatus() == 201));
     }
 
     @Test
@@ -116,28 +160,25 @@ class PaymentServiceTests {
         String idempotencyKey = "idem-2";
         String requestHash = "hash-2";
 
-        when(idempotencyService.generateRequestHash(req)).thenReturn(requestHash);
-        when(idempotencyService.hasSameRequest(idempotencyKey, requestHash)).thenReturn(true);
+        when(idempotencyService.fingerprint(req)).thenReturn(RequestFingerprint.of(requestHash));
 
         CreatePaymentResponse cachedResp = new CreatePaymentResponse("pl_cached", PaymentStatus.PENDING.name());
         String cachedJson = objectMapper.writeValueAsString(cachedResp);
 
-        when(idempotencyService.getCachedResponse(idempotencyKey)).thenReturn(Optional.of(cachedJson));
+        when(idempotencyService.lookup(idempotencyKey, RequestFingerprint.of(requestHash))).thenReturn(IdempotencyLookupResult.match(StoredResponse.json(201, cachedJson.getBytes(StandardCharsets.UTF_8))));
 
-        // modelMapper should map the parsed CreatePaymentResponse back to same type (redundant in code)
-        when(modelMapper.map(any(CreatePaymentResponse.class), eq(CreatePaymentResponse.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
 
         // when
-        CreatePaymentResponse resp = paymentService.createPayment(req, idempotencyKey);
+        CreatePaymentResponse resp = readCreated(paymentService.createPayment(req, idempotencyKey));
 
         // then
         assertNotNull(resp);
         assertEquals("pl_cached", resp.getPaymentId());
         assertEquals(PaymentStatus.PENDING.name(), resp.getStatus());
 
-        // ensure we did not call repository.save
+        // ensure we did not call repository.save or open a write transaction
         verify(paymentRepository, never()).save(any());
+        verify(transactionTemplate, never()).execute(any());
     }
 
     @Test
@@ -152,9 +193,8 @@ class PaymentServiceTests {
         String idempotencyKey = "idem-3";
         String requestHash = "hash-3";
 
-        when(idempotencyService.generateRequestHash(req)).thenReturn(requestHash);
-        when(idempotencyService.hasSameRequest(idempotencyKey, requestHash)).thenReturn(false);
-        when(idempotencyService.isDuplicateRequest(idempotencyKey, requestHash)).thenReturn(true);
+        when(idempotencyService.fingerprint(req)).thenReturn(RequestFingerprint.of(requestHash));
+        when(idempotencyService.lookup(idempotencyKey, RequestFingerprint.of(requestHash))).thenReturn(IdempotencyLookupResult.conflict());
 
         // when / then
         PayliteException ex = assertThrows(PayliteException.class, () -> paymentService.createPayment(req, idempotencyKey));
@@ -163,6 +203,137 @@ class PaymentServiceTests {
         verify(paymentRepository, never()).save(any());
     }
 
+    @Test
+    void createPayment_keyReservedConcurrently_returnsWinnersResponse() throws Exception {
+        // given
+        CreatePaymentRequest req = new CreatePaymentRequest();
+        req.setAmount(new BigDecimal("9"));
+        req.setCurrency("USD");
+        req.setCustomerEmail("erin@example.com");
+        req.setReference("ref-race");
+
+        String idempotencyKey = "idem-race";
+        String requestHash = "hash-race";
+        String winnerJson = objectMapper.writeValueAsString(new CreatePaymentResponse("pl_winner", PaymentStatus.PENDING.name()));
+
+        when(idempotencyService.fingerprint(req)).thenReturn(RequestFingerprint.of(requestHash));
+        when(idempotencyService.lookup(idempotencyKey, RequestFingerprint.of(requestHash)))
+                .thenReturn(IdempotencyLookupResult.absent(), IdempotencyLookupResult.match(StoredResponse.json(201, winnerJson.getBytes(StandardCharsets.UTF_8))));
+        when(transactionTemplate.execute(any()))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry 'idem-race' for key 'key'"));
+
+        // when
+        CreatePaymentResponse resp = readCreated(paymentService.createPayment(req, idempotencyKey));
+
+        // then
+        assertEquals("pl_winner", resp.getPaymentId());
+        verify(idempotencyService, times(2)).lookup(idempotencyKey, RequestFingerprint.of(requestHash));
+    }
+
+    @Test
+    void createPayment_reservationReservesKeyBeforeSavingPayment() {
+        CreatePaymentRequest req = new CreatePaymentRequest();
+        req.setAmount(new BigDecimal("3"));
+        req.setCurrency("USD");
+        req.setCustomerEmail("frank@example.com");
+        req.setReference("ref-order");
+
+        when(idempotencyService.fingerprint(req)).thenReturn(RequestFingerprint.of("hash-order"));
+        when(idempotencyService.lookup("idem-order", RequestFingerprint.of("hash-order"))).thenReturn(IdempotencyLookupResult.absent());
+        when(idGenerator.generatePaymentId()).thenReturn("pl_order");
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        paymentService.createPayment(req, "idem-order");
+
+        InOrder inOrder = inOrder(idempotencyService, paymentRepository);
+        inOrder.verify(idempotencyService).storeIdempotencyKey(eq("idem-order"), eq("hash-order"),
+                argThat(response -> new String(response.getBody(), StandardCharsets.UTF_8).contains("pl_order")));
+        inOrder.verify(paymentRepository).save(any(Payment.class));
+    }
+
+    @Test
+    void createPayments_mixedBatch_resolvesIdempotencyOnceAndBatchInserts() throws Exception {
+        CreatePaymentRequest fresh = paymentRequest("11.00", "fresh@example.com");
+        CreatePaymentRequest replayed = paymentRequest("12.00", "replay@example.com");
+        CreatePaymentRequest conflicting = paymentRequest("13.00", "conflict@example.com");
+        BatchCreatePaymentRequest batch = new BatchCreatePaymentRequest(List.of(
+                new BatchCreatePaymentItem("k-fresh", fresh),
+                new BatchCreatePaymentItem("k-replay", replayed),
+                new BatchCreatePaymentItem("k-conflict", conflicting),
+                new BatchCreatePaymentItem("k-fresh", fresh)
+        ));
+
+        when(idempotencyService.fingerprint(fresh)).thenReturn(RequestFingerprint.of("h-fresh"));
+        when(idempotencyService.fingerprint(replayed)).thenReturn(RequestFingerprint.of("h-replay"));
+        when(idempotencyService.fingerprint(conflicting)).thenReturn(RequestFingerprint.of("h-conflict"));
+        String cachedJson = objectMapper.writeValueAsString(new CreatePaymentResponse("pl_old", "PENDING"));
+        when(idempotencyService.lookupAll(anyMap())).thenReturn(Map.of(
+                "k-fresh", IdempotencyLookupResult.absent(),
+                "k-replay", IdempotencyLookupResult.match(StoredResponse.json(201, cachedJson.getBytes(StandardCharsets.UTF_8))),
+                "k-conflict", IdempotencyLookupResult.conflict()
+        ));
+        when(idGenerator.generatePaymentId()).thenReturn("pl_new");
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        BatchCreatePaymentResponse response = paymentService.createPayments(batch);
+
+        List<BatchPaymentResult> results = response.getResults();
+        assertEquals(4, results.size());
+        assertEquals(BatchItemOutcome.CREATED, results.get(0).getOutcome());
+        assertEquals("pl_new", results.get(0).getPaymentId());
+        assertEquals(BatchItemOutcome.REPLAYED, results.get(1).getOutcome());
+        assertEquals("pl_old", results.get(1).getPaymentId());
+        assertEquals(BatchItemOutcome.CONFLICT, results.get(2).getOutcome());
+        assertEquals(BatchItemOutcome.REPLAYED, results.get(3).getOutcome());
+        assertEquals("pl_new", results.get(3).getPaymentId());
+
+        verify(idempotencyService, times(1)).lookupAll(anyMap());
+        verify(idempotencyService).storeIdempotencyKeys(argThat(keys -> keys.size() == 1));
+        verify(paymentRepository).saveAll(argThat((List<Payment> payments) -> payments.size() == 1));
+        verify(paymentRepository, never()).save(any());
+    }
+
+    @Test
+    void createPayments_sameKeyDifferentPayloadInBatch_conflicts() {
+        CreatePaymentRequest first = paymentRequest("1.00", "a@example.com");
+        CreatePaymentRequest second = paymentRequest("2.00", "b@example.com");
+        BatchCreatePaymentRequest batch = new BatchCreatePaymentRequest(List.of(
+                new BatchCreatePaymentItem("k-dup", first),
+                new BatchCreatePaymentItem("k-dup", second)
+        ));
+
+        when(idempotencyService.fingerprint(first)).thenReturn(RequestFingerprint.of("h-1"));
+        when(idempotencyService.fingerprint(second)).thenReturn(RequestFingerprint.of("h-2"));
+        when(idempotencyService.lookupAll(anyMap())).thenReturn(Map.of("k-dup", IdempotencyLookupResult.absent()));
+        when(idGenerator.generatePaymentId()).thenReturn("pl_dup");
+
+        BatchCreatePaymentResponse response = paymentService.createPayments(batch);
+
+        assertEquals(BatchItemOutcome.CREATED, response.getResults().get(0).getOutcome());
+        assertEquals(BatchItemOutcome.CONFLICT, response.getResults().get(1).getOutcome());
+    }
+
+    @Test
+    void createPayments_allReplayed_opensNoTransaction() throws Exception {
+        CreatePaymentRequest replayed = paymentRequest("5.00", "r@example.com");
+        BatchCreatePaymentRequest batch = new BatchCreatePaymentRequest(List.of(
+                new BatchCreatePaymentItem("k-r", replayed)));
+        String cachedJson = objectMapper.writeValueAsString(new CreatePaymentResponse("pl_r", "PENDING"));
+
+        when(idempotencyService.fingerprint(replayed)).thenReturn(RequestFingerprint.of("h-r"));
+        when(idempotencyService.lookupAll(anyMap())).thenReturn(Map.of("k-r", IdempotencyLookupResult.match(StoredResponse.json(201, cachedJson.getBytes(StandardCharsets.UTF_8)))));
+
+        BatchCreatePaymentResponse response = paymentService.createPayments(batch);
+
+        assertEquals("pl_r", response.getResults().get(0).getPaymentId());
+        verifyNoInteractions(transactionTemplate);
+    }
+
     @Test
     void getPayment_existing_returnsMappedResponse() {
         // given
@@ -176,12 +347,6 @@ class PaymentServiceTests {
 
         when(paymentRepository.findByPaymentId("pl_found")).thenReturn(Optional.of(p));
 
-        PaymentResponse mapped = new PaymentResponse();
-        mapped.setPaymentId("pl_found");
-        mapped.setStatus(PaymentStatus.PENDING.name());
-
-        when(modelMapper.map(p, PaymentResponse.class)).thenReturn(mapped);
-
         // when
         PaymentResponse resp = paymentService.getPayment("pl_found");
 
@@ -189,6 +354,32 @@ class PaymentServiceTests {
         assertNotNull(resp);
         assertEquals("pl_found", resp.getPaymentId());
         assertEquals(PaymentStatus.PENDING.name(), resp.getStatus());
+        assertEquals(new BigDecimal("12"), resp.getAmount());
+        assertEquals("r-1", resp.getReference());
+    }
+
+    @Test
+    void getPayment_repeatedPolls_loadFromDatabaseOnce() {
+        Payment p = new Payment();
+        p.setPaymentId("pl_hot");
+        p.setStatus(PaymentStatus.PENDING);
+        when(paymentRepository.findByPaymentId("pl_hot")).thenReturn(Optional.of(p));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("PENDING", paymentService.getPayment("pl_hot").getStatus());
+        }
+
+        verify(paymentRepository, times(1)).findByPaymentId("pl_hot");
+    }
+
+    @Test
+    void updatePaymentStatus_evictsCachedPayment() {
+        when(paymentRepository.transitionStatus(eq("pl_poll"), eq(Set.of(PaymentStatus.PENDING)), eq(PaymentStatus.SUCCEEDED), any()))
+                .thenReturn(1);
+
+        paymentService.updatePaymentStatus("pl_poll", PaymentStatus.SUCCEEDED);
+
+        verify(paymentResponseCache).invalidateAfterCommit(List.of("pl_poll"));
     }
 
     @Test
@@ -202,32 +393,164 @@ class PaymentServiceTests {
     }
 
     @Test
-    void updatePaymentStatus_existing_updatesAndSaves() {
-        // given
-        Payment p = new Payment();
-        p.setPaymentId("pl_up");
-        p.setStatus(PaymentStatus.PENDING);
+    void updatePaymentStatus_pendingPayment_isAppliedWithOneGuardedUpdate() {
+        when(paymentRepository.transitionStatus(eq("pl_up"), eq(Set.of(PaymentStatus.PENDING)), eq(PaymentStatus.SUCCEEDED), any()))
+                .thenReturn(1);
 
-        when(paymentRepository.findByPaymentId("pl_up")).thenReturn(Optional.of(p));
-        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        StatusTransitionOutcome outcome = paymentService.updatePaymentStatus("pl_up", PaymentStatus.SUCCEEDED);
 
-        // when
-        paymentService.updatePaymentStatus("pl_up", PaymentStatus.SUCCEEDED);
+        assertEquals(StatusTransitionOutcome.APPLIED, outcome);
+        verify(outboxService).recordPaymentStatusChanges(List.of("pl_up"), PaymentStatus.SUCCEEDED);
+        verify(paymentStatusWaiters).publishAfterCommit(eq(List.of("pl_up")), eq(PaymentStatus.SUCCEEDED), any());
+        verify(paymentRepository, never()).findByPaymentId(anyString());
+        verify(paymentRepository, never()).findStatusByPaymentId(anyString());
+        verify(paymentRepository, never()).save(any());
+    }
 
-        // then
-        verify(paymentRepository).save(paymentCaptor.capture());
-        Payment saved = paymentCaptor.getValue();
-        assertEquals(PaymentStatus.SUCCEEDED, saved.getStatus());
+    @Test
+    void updatePaymentStatus_alreadyInTargetStatus_isUnchanged() {
+        when(paymentRepository.transitionStatus(eq("pl_done"), any(), eq(PaymentStatus.SUCCEEDED), any())).thenReturn(0);
+        when(paymentRepository.findStatusByPaymentId("pl_done")).thenReturn(Optional.of(PaymentStatus.SUCCEEDED));
+
+        assertEquals(StatusTransitionOutcome.UNCHANGED, paymentService.updatePaymentStatus("pl_done", PaymentStatus.SUCCEEDED));
+        verify(paymentResponseCache, never()).invalidateAfterCommit(any());
+        verifyNoInteractions(outboxService);
+    }
+
+    @Test
+    void updatePaymentStatus_lateFailureForSucceededPayment_isRejected() {
+        when(paymentRepository.transitionStatus(eq("pl_done"), any(), eq(PaymentStatus.FAILED), any())).thenReturn(0);
+        when(paymentRepository.findStatusByPaymentId("pl_done")).thenReturn(Optional.of(PaymentStatus.SUCCEEDED));
+
+        assertEquals(StatusTransitionOutcome.REJECTED, paymentService.updatePaymentStatus("pl_done", PaymentStatus.FAILED));
+    }
+
+    @Test
+    void updatePaymentStatus_backToPending_isRejectedWithoutUpdating() {
+        when(paymentRepository.findStatusByPaymentId("pl_done")).thenReturn(Optional.of(PaymentStatus.FAILED));
+
+        assertEquals(StatusTransitionOutcome.REJECTED, paymentService.updatePaymentStatus("pl_done", PaymentStatus.PENDING));
+        verify(paymentRepository, never()).transitionStatus(anyString(), any(), any(), any());
     }
 
     @Test
     void updatePaymentStatus_notFound_throwsNotFound() {
         // given
-        when(paymentRepository.findByPaymentId("missing")).thenReturn(Optional.empty());
+        when(paymentRepository.findStatusByPaymentId("missing")).thenReturn(Optional.empty());
 
         // when / then
         PayliteException ex = assertThrows(PayliteException.class, () -> paymentService.updatePaymentStatus("missing", PaymentStatus.SUCCEEDED));
         assertTrue(ex.getMessage().toLowerCase().contains("not found"));
+    }
+
+    @Test
+    void updatePaymentStatuses_groupsUpdatesByStatusAndSkipsUnknownPayments() {
+        Map<String, PaymentStatus> statuses = new LinkedHashMap<>();
+        statuses.put("pl_a", PaymentStatus.SUCCEEDED);
+        statuses.put("pl_b", PaymentStatus.SUCCEEDED);
+        statuses.put("pl_c", PaymentStatus.FAILED);
+        statuses.put("pl_missing", PaymentStatus.FAILED);
+
+        when(paymentRepository.findStatusesForUpdate(statuses.keySet())).thenReturn(List.of(
+                statusView("pl_a", PaymentStatus.PENDING),
+                statusView("pl_b", PaymentStatus.PENDING),
+                statusView("pl_c", PaymentStatus.PENDING)));
+
+        Map<String, StatusTransitionOutcome> outcomes = paymentService.updatePaymentStatuses(statuses);
+
+        assertEquals(Set.of("pl_a", "pl_b", "pl_c"), outcomes.keySet());
+        assertEquals(StatusTransitionOutcome.APPLIED, outcomes.get("pl_c"));
+        verify(paymentRepository).updateStatusByPaymentIds(eq(List.of("pl_a", "pl_b")), eq(Set.of(PaymentStatus.PENDING)), eq(PaymentStatus.SUCCEEDED), any());
+        verify(paymentRepository).updateStatusByPaymentIds(eq(List.of("pl_c")), eq(Set.of(PaymentStatus.PENDING)), eq(PaymentStatus.FAILED), any());
         verify(paymentRepository, never()).save(any());
     }
+
+    @Test
+    void updatePaymentStatuses_recordsOutboxEventsOnlyForPaymentsThatMoved() {
+        Map<String, PaymentStatus> statuses = new LinkedHashMap<>();
+        statuses.put("pl_pending", PaymentStatus.SUCCEEDED);
+        statuses.put("pl_settled", PaymentStatus.FAILED);
+
+        when(paymentRepository.findStatusesForUpdate(statuses.keySet())).thenReturn(List.of(
+                statusView("pl_pending", PaymentStatus.PENDING),
+                statusView("pl_settled", PaymentStatus.SUCCEEDED)));
+
+        Map<String, StatusTransitionOutcome> outcomes = paymentService.updatePaymentStatuses(statuses);
+
+        assertEquals(StatusTransitionOutcome.REJECTED, outcomes.get("pl_settled"));
+        verify(outboxService).recordPaymentStatusChanges(List.of("pl_pending"), PaymentStatus.SUCCEEDED);
+        verify(outboxService, never()).recordPaymentStatusChanges(any(), eq(PaymentStatus.FAILED));
+        verify(paymentRepository, never()).updateStatusByPaymentIds(any(), any(), eq(PaymentStatus.FAILED), any());
+    }
+
+    private PaymentRepository.PaymentStatusView statusView(String paymentId, PaymentStatus status) {
+        return new PaymentRepository.PaymentStatusView() {
+            @Override
+            public String getPaymentId() {
+                return paymentId;
+            }
+
+            @Override
+            public PaymentStatus getStatus() {
+                return status;
+            }
+        };
+    }
+
+    private CreatePaymentRequest paymentRequest(String amount, String email) {
+        CreatePaymentRequest request = new CreatePaymentRequest();
+        request.setAmount(new BigDecimal(amount));
+        request.setCurrency("USD");
+        request.setCustomerEmail(email);
+        request.setReference("ref-" + email);
+        return request;
+    }
+
+    private CreatePaymentResponse readCreated(StoredResponse response) throws Exception {
+        assertEquals(201, response.getStatus());
+        return objectMapper.readValue(response.getBody(), CreatePaymentResponse.class);
+    }
+
+    @Test
+    void listPayments_fullPage_returnsCursorAfterTheLastRow() {
+        PaymentSearchCriteria criteria = PaymentSearchCriteria.builder().status(PaymentStatus.PENDING).build();
+        LocalDateTime createdAt = LocalDateTime.of(2026, 1, 1, 12, 0);
+        List<PaymentSummary> rows = List.of(summary("pl_3", createdAt), summary("pl_2", createdAt), summary("pl_1", createdAt));
+        when(paymentRepository.search(criteria, null, 3)).thenReturn(rows);
+
+        PaymentPage page = paymentService.listPayments(criteria, null, 2);
+
+        assertEquals(List.of("pl_3", "pl_2"), page.getPayments().stream().map(PaymentSummary::getPaymentId).toList());
+        PaymentCursor next = PaymentCursor.decode(page.getNextCursor());
+        assertEquals(createdAt, next.getCreatedAt());
+        assertEquals(rows.get(1).getId(), next.getId());
+    }
+
+    @Test
+    void listPayments_lastPage_hasNoCursor() {
+        PaymentSearchCriteria criteria = PaymentSearchCriteria.builder().build();
+        PaymentCursor after = new PaymentCursor(LocalDateTime.of(2026, 1, 1, 12, 0), UUID.randomUUID());
+        when(paymentRepository.search(eq(criteria), any(PaymentCursor.class), eq(51)))
+                .thenReturn(List.of(summary("pl_1", LocalDateTime.of(2026, 1, 1, 11, 0))));
+
+        PaymentPage page = paymentService.listPayments(criteria, after.encode(), 50);
+
+        assertEquals(1, page.getPayments().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void listPayments_rejectsBadLimitAndCursor() {
+        PaymentSearchCriteria criteria = PaymentSearchCriteria.builder().build();
+
+        assertThrows(PayliteException.class, () -> paymentService.listPayments(criteria, null, 0));
+        assertThrows(PayliteException.class, () -> paymentService.listPayments(criteria, null, 201));
+        assertThrows(PayliteException.class, () -> paymentService.listPayments(criteria, "not-a-cursor", 50));
+        verify(paymentRepository, never()).search(any(), any(), anyInt());
+    }
+
+    private PaymentSummary summary(String paymentId, LocalDateTime createdAt) {
+        return new PaymentSummary(UUID.randomUUID(), paymentId, new BigDecimal("10.00"), "USD", "a@example.com",
+                "ref-" + paymentId, "PENDING", createdAt, createdAt);
+    }
 }
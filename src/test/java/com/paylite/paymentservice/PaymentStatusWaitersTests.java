@@ -0,0 +1,110 @@
+package com.paylite.paymentservice;
+
+import com.paylite.paymentservice.common.exceptions.PayliteException;
+import com.paylite.paymentservice.modules.payment.dto.PaymentResponse;
+import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+import com.paylite.paymentservice.modules.payment.notification.PaymentStatusWaiters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentStatusWaitersTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PaymentStatusWaiters waiters;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        waiters = new PaymentStatusWaiters(3, 2, Duration.ofSeconds(60), meterRegistry);
+    }
+
+    @Test
+    void await_settledPayment_answersImmediately() {
+        DeferredResult<PaymentResponse> result = waiters.await("pl_1", Duration.ofSeconds(30), () -> payment("pl_1", "SUCCEEDED"));
+
+        assertEquals("SUCCEEDED", ((PaymentResponse) result.getResult()).getStatus());
+    }
+
+    @Test
+    void publish_wakesWaitersWithTheSettledStatus() {
+        DeferredResult<PaymentResponse> result = waiters.await("pl_1", Duration.ofSeconds(30), () -> payment("pl_1", "PENDING"));
+        assertFalse(result.hasResult());
+        assertEquals(1, meterRegistry.get("payment.wait.waiters").gauge().value());
+
+        LocalDateTime settledAt = LocalDateTime.now();
+        waiters.publishAfterCommit(List.of("pl_1"), PaymentStatus.FAILED, settledAt);
+
+        PaymentResponse response = (PaymentResponse) result.getResult();
+        assertEquals("FAILED", response.getStatus());
+        assertEquals(settledAt, response.getUpdatedAt());
+        assertEquals(new BigDecimal("10.00"), response.getAmount());
+        assertEquals(1, meterRegistry.get("payment.wait.completed").tag("outcome", "settled").counter().count());
+    }
+
+    @Test
+    void publish_settlementDuringTheInitialRead_isNotLost() {
+        DeferredResult<PaymentResponse> result = waiters.await("pl_1", Duration.ofSeconds(30), () -> {
+            // The read still sees the stale view, but the waiter is already registered
+            waiters.publishAfterCommit(List.of("pl_1"), PaymentStatus.SUCCEEDED, LocalDateTime.now());
+            return payment("pl_1", "PENDING");
+        });
+
+        assertEquals("SUCCEEDED", ((PaymentResponse) result.getResult()).getStatus());
+    }
+
+    @Test
+    void publishAfterCommit_waitsForTheTransactionToCommit() {
+        DeferredResult<PaymentResponse> result = waiters.await("pl_1", Duration.ofSeconds(30), () -> payment("pl_1", "PENDING"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            waiters.publishAfterCommit(List.of("pl_1"), PaymentStatus.SUCCEEDED, LocalDateTime.now());
+            assertFalse(result.hasResult());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(result.hasResult());
+    }
+
+    @Test
+    void await_tooManyWaiters_isRejected() {
+        waiters.await("pl_1", Duration.ofSeconds(30), () -> payment("pl_1", "PENDING"));
+        waiters.await("pl_1", Duration.ofSeconds(30), () -> payment("pl_1", "PENDING"));
+
+        assertThrows(PayliteException.class,
+                () -> waiters.await("pl_1", Duration.ofSeconds(30), () -> payment("pl_1", "PENDING")));
+
+        waiters.await("pl_2", Duration.ofSeconds(30), () -> payment("pl_2", "PENDING"));
+        assertThrows(PayliteException.class,
+                () -> waiters.await("pl_3", Duration.ofSeconds(30), () -> payment("pl_3", "PENDING")));
+        assertEquals(3, waiters.size());
+        assertEquals(2, meterRegistry.get("payment.wait.rejected").counter().count());
+    }
+
+    @Test
+    void await_unknownPayment_releasesItsSlot() {
+        assertThrows(PayliteException.class, () -> waiters.await("pl_missing", Duration.ofSeconds(30), () -> {
+            throw PayliteException.notFound("Payment not found: pl_missing");
+        }));
+
+        assertEquals(0, waiters.size());
+    }
+
+    private PaymentResponse payment(String paymentId, String status) {
+        return new PaymentResponse(paymentId, new BigDecimal("10.00"), "NGN", "ref-" + paymentId, status,
+                LocalDateTime.now().minusMinutes(1));
+    }
+}
@@ -0,0 +1,92 @@
+package com.paylite.paymentservice;
+
+import com.paylite.paymentservice.common.exceptions.PayliteException;
+import com.paylite.paymentservice.common.utilities.RequestBodyReader;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.DelegatingServletInputStream;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestBodyReaderTests {
+
+    private final RequestBodyReader reader = new RequestBodyReader(DataSize.ofKilobytes(100));
+
+    @Test
+    void read_keepsBodyExactlyAsSent() throws Exception {
+        String json = "{\r\n  \"paymentId\": \"pl_1\",\n  \"event\": \"payment.succeeded\"\n}\n";
+
+        try (RequestBodyReader.Body body = reader.read(request(json.getBytes(StandardCharsets.UTF_8), true))) {
+            assertEquals(json, body.asString());
+            assertEquals(json.length(), body.asByteBuffer().remaining());
+        }
+    }
+
+    @Test
+    void read_bodyLargerThanPooledBuffer_withoutContentLength_growsAndKeepsAllBytes() throws Exception {
+        byte[] content = new byte[50 * 1024];
+        new Random(42).nextBytes(content);
+
+        try (RequestBodyReader.Body body = reader.read(request(content, false))) {
+            assertEquals(content.length, body.length());
+            assertArrayEquals(content, Arrays.copyOf(body.array(), body.length()));
+        }
+    }
+
+    @Test
+    void read_declaredLengthOverLimit_rejectsBeforeReading() {
+        PayliteException ex = assertThrows(PayliteException.class,
+                () -> reader.read(request(new byte[101 * 1024], true)));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, ex.getStatus());
+    }
+
+    @Test
+    void read_streamedBodyOverLimit_rejected() {
+        PayliteException ex = assertThrows(PayliteException.class,
+                () -> reader.read(request(new byte[101 * 1024], false)));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, ex.getStatus());
+    }
+
+    @Test
+    void read_bodyExactlyAtLimit_accepted() throws Exception {
+        try (RequestBodyReader.Body body = reader.read(request(new byte[100 * 1024], false))) {
+            assertEquals(100 * 1024, body.length());
+        }
+    }
+
+    @Test
+    void close_returnsBufferForReuse() throws Exception {
+        byte[] first;
+        try (RequestBodyReader.Body body = reader.read(request("a".getBytes(StandardCharsets.UTF_8), true))) {
+            first = body.array();
+        }
+        try (RequestBodyReader.Body body = reader.read(request("b".getBytes(StandardCharsets.UTF_8), true))) {
+            assertSame(first, body.array());
+            assertEquals("b", body.asString());
+        }
+    }
+
+    private MockHttpServletRequest request(byte[] content, boolean withContentLength) {
+        return new MockHttpServletRequest() {
+            @Override
+            public long getContentLengthLong() {
+                return withContentLength ? content.length : -1;
+            }
+
+            @Override
+            public ServletInputStream getInputStream() {
+                return new DelegatingServletInputStream(new ByteArrayInputStream(content));
+            }
+        };
+    }
+}
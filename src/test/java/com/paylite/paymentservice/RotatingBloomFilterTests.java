@@ -0,0 +1,70 @@
+package com.paylite.paymentservice;
+
+import com.paylite.paymentservice.common.utilities.RotatingBloomFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RotatingBloomFilterTests {
+
+    @Test
+    void mightContain_returnsTrueForEveryInsertedValue() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(2, 10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("evt_" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("evt_" + i));
+        }
+        assertEquals(10_000, filter.size());
+    }
+
+    @Test
+    void mightContain_falsePositiveRateStaysNearConfiguredBound() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(1, 50_000, 0.01);
+        for (int i = 0; i < 50_000; i++) {
+            filter.put("pl_" + i + "_payment.succeeded");
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("pl_" + i + "_payment.failed")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < probes * 0.02, "false positive rate was " + (double) falsePositives / probes);
+    }
+
+    @Test
+    void rotate_forgetsValuesOlderThanTheRetainedGenerations() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(2, 1_000, 0.01);
+        filter.put("evt_old");
+
+        filter.rotate();
+        assertTrue(filter.mightContain("evt_old"));
+
+        filter.rotate();
+        assertFalse(filter.mightContain("evt_old"));
+        assertEquals(0, filter.size());
+    }
+
+    @Test
+    void put_rotatesWhenNewestGenerationIsFull() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(2, 100, 0.01);
+        for (int i = 0; i < 250; i++) {
+            filter.put("evt_" + i);
+        }
+
+        // Two generations of 100 are retained, so the first 50 have aged out
+        assertEquals(150, filter.size());
+        assertTrue(filter.mightContain("evt_249"));
+    }
+
+    @Test
+    void constructor_rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new RotatingBloomFilter(0, 100, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new RotatingBloomFilter(2, 100, 1.0));
+    }
+}
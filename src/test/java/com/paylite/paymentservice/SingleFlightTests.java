@@ -0,0 +1,101 @@
+package com.paylite.paymentservice;
+
+import com.paylite.paymentservice.common.exceptions.PayliteException;
+import com.paylite.paymentservice.common.utilities.SingleFlight;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTests {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void execute_sequentialCalls_eachRunSupplier() {
+        AtomicInteger calls = new AtomicInteger();
+
+        singleFlight.execute("k", () -> "v" + calls.incrementAndGet());
+        String second = singleFlight.execute("k", () -> "v" + calls.incrementAndGet());
+
+        assertEquals("v2", second);
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void execute_concurrentCallsSameKey_shareOneExecution() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("k", () -> {
+                calls.incrementAndGet();
+                leaderStarted.countDown();
+                await(release);
+                return "shared";
+            }));
+            leaderStarted.await();
+
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                followers.add(executor.submit(() -> singleFlight.execute("k", () -> "v" + calls.incrementAndGet())));
+            }
+            // followers are parked on the leader's call
+            Thread.sleep(50);
+            release.countDown();
+
+            assertEquals("shared", leader.get(5, TimeUnit.SECONDS));
+            for (Future<String> follower : followers) {
+                String result = follower.get(5, TimeUnit.SECONDS);
+                // a follower that arrived after the leader finished runs on its own
+                assertTrue(result.equals("shared") || result.startsWith("v"));
+            }
+            assertTrue(calls.get() < 8);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_leaderThrows_followersSeeSameException() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("k", () -> {
+                leaderStarted.countDown();
+                await(release);
+                throw PayliteException.conflict("boom");
+            }));
+            leaderStarted.await();
+            Future<String> follower = executor.submit(() -> singleFlight.execute("k", () -> "unused"));
+            Thread.sleep(50);
+            release.countDown();
+
+            ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(PayliteException.class, leaderError.getCause());
+            try {
+                follower.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException followerError) {
+                assertSame(leaderError.getCause(), followerError.getCause());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.paylite.paymentservice;
+
+import com.paylite.paymentservice.common.utilities.IdGenerator;
+import com.paylite.paymentservice.common.utilities.SortablePaymentIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortablePaymentIdGeneratorTests {
+
+    @Test
+    void nextId_hasPrefixAndFixedLength() {
+        SortablePaymentIdGenerator generator = new SortablePaymentIdGenerator(7);
+
+        String id = generator.nextId();
+
+        assertTrue(id.startsWith("pl_"));
+        assertEquals(16, id.length(), "pl_ + 13 base32 characters");
+        assertTrue(id.substring(3).matches("[0-9A-HJKMNP-TV-Z]{13}"));
+    }
+
+    @Test
+    void nextId_sortsByCreationOrder() {
+        SortablePaymentIdGenerator generator = new SortablePaymentIdGenerator(1);
+
+        String previous = generator.nextId();
+        for (int i = 0; i < 50_000; i++) {
+            String current = generator.nextId();
+            assertTrue(current.compareTo(previous) > 0, "ids must be strictly increasing");
+            previous = current;
+        }
+    }
+
+    @Test
+    void nextId_differentNodesNeverCollide() {
+        SortablePaymentIdGenerator nodeA = new SortablePaymentIdGenerator(1);
+        SortablePaymentIdGenerator nodeB = new SortablePaymentIdGenerator(2);
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+
+        for (int i = 0; i < 20_000; i++) {
+            assertTrue(seen.add(nodeA.nextId()));
+            assertTrue(seen.add(nodeB.nextId()));
+        }
+    }
+
+    @Test
+    void nextId_isUniqueUnderContention() throws Exception {
+        SortablePaymentIdGenerator generator = new SortablePaymentIdGenerator(3);
+        int threads = 16;
+        int perThread = 25_000;
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        seen.add(generator.nextId());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, seen.size());
+    }
+
+    @Test
+    void constructor_rejectsOutOfRangeNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new SortablePaymentIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SortablePaymentIdGenerator(1024));
+    }
+
+    @Test
+    void idGenerator_sortableMode_usesSortableIds() {
+        IdGenerator idGenerator = new IdGenerator(IdGenerator.Mode.SORTABLE, 5);
+
+        String paymentId = idGenerator.generatePaymentId();
+
+        assertTrue(paymentId.startsWith("pl_"));
+        assertEquals(16, paymentId.length());
+    }
+}
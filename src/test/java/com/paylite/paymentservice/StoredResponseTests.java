@@ -0,0 +1,30 @@
+package com.paylite.paymentservice;
+
+import com.paylite.paymentservice.modules.payment.dto.StoredResponse;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StoredResponseTests {
+
+    @Test
+    void encode_thenDecode_roundTripsStatusTypeAndBody() {
+        byte[] body = "{\"paymentId\":\"pl_1\",\"status\":\"PENDING\"}".getBytes(StandardCharsets.UTF_8);
+
+        StoredResponse decoded = StoredResponse.decode(StoredResponse.json(201, body).encode());
+
+        assertEquals(201, decoded.getStatus());
+        assertEquals("application/json", decoded.getContentType());
+        assertArrayEquals(body, decoded.getBody());
+    }
+
+    @Test
+    void encode_emptyBody_roundTrips() {
+        StoredResponse decoded = StoredResponse.decode(StoredResponse.json(409, new byte[0]).encode());
+
+        assertEquals(409, decoded.getStatus());
+        assertEquals(0, decoded.getBody().length);
+    }
+}
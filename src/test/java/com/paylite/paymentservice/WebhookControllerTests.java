@@ -6,9 +6,15 @@ package com.paylite.paymentservice;
 
         import com.fasterxml.jackson.databind.ObjectMapper;
         import com.paylite.paymentservice.common.exceptions.PayliteException;
+        import com.paylite.paymentservice.common.utilities.RequestBodyReader;
         import com.paylite.paymentservice.modules.webhook.WebhookController;
+        import com.paylite.paymentservice.modules.webhook.dto.WebhookBatchRequest;
+        import com.paylite.paymentservice.modules.webhook.dto.WebhookBatchResponse;
+        import com.paylite.paymentservice.modules.webhook.dto.WebhookEventResult;
         import com.paylite.paymentservice.modules.webhook.dto.WebhookRequest;
         import com.paylite.paymentservice.modules.webhook.dto.WebhookResponse;
+        import com.paylite.paymentservice.modules.webhook.enums.WebhookEventOutcome;
+        import com.paylite.paymentservice.modules.webhook.service.AsyncWebhookProcessor;
         import com.paylite.paymentservice.modules.webhook.service.WebhookService;
         import jakarta.servlet.http.HttpServletRequest;
         import org.junit.jupiter.api.BeforeEach;
@@ -17,6 +23,12 @@ package com.paylite.paymentservice;
         import org.springframework.mock.web.MockHttpServletRequest;
         import org.springframework.mock.web.MockHttpServletResponse;
 
+        import org.springframework.util.unit.DataSize;
+
+        import java.nio.ByteBuffer;
+        import java.nio.charset.StandardCharsets;
+        import java.util.List;
+
         import static org.junit.jupiter.api.Assertions.*;
         import static org.mockito.Mockito.*;
 
@@ -24,13 +36,16 @@ class WebhookControllerTests {
 
     private WebhookController controller;
     private WebhookService webhookService;
+    private AsyncWebhookProcessor asyncWebhookProcessor;
     private ObjectMapper objectMapper;
 
     @BeforeEach
     void setUp() {
         webhookService = mock(WebhookService.class);
+        asyncWebhookProcessor = mock(AsyncWebhookProcessor.class);
         objectMapper = new ObjectMapper();
-        controller = new WebhookController(webhookService, objectMapper);
+        controller = new WebhookController(webhookService, asyncWebhookProcessor, objectMapper,
+                new RequestBodyReader(DataSize.ofKilobytes(64)));
     }
 
     @Test
@@ -47,8 +62,8 @@ class WebhookControllerTests {
         request.addHeader("X-PSP-Signature", "valid-signature");
 
         // Mock service
-        when(webhookService.verifySignature("valid-signature", rawBody)).thenReturn(true);
-        when(webhookService.processWebhook(webhookRequest, "valid-signature"))
+        when(webhookService.verifySignature("valid-signature", bytes(rawBody))).thenReturn(true);
+        when(webhookService.processWebhook(webhookRequest, "valid-signature", rawBody))
                 .thenReturn(new WebhookResponse("SUCCESS", "Webhook processed successfully"));
 
         var entity = controller.handlePspWebhook("valid-signature", request);
@@ -68,7 +83,7 @@ class WebhookControllerTests {
         String rawBody = objectMapper.writeValueAsString(webhookRequest);
         request.setContent(rawBody.getBytes());
 
-        when(webhookService.verifySignature("bad-signature", rawBody)).thenReturn(false);
+        when(webhookService.verifySignature("bad-signature", bytes(rawBody))).thenReturn(false);
 
         PayliteException ex = assertThrows(PayliteException.class,
                 () -> controller.handlePspWebhook("bad-signature", request));
@@ -83,11 +98,107 @@ class WebhookControllerTests {
         request.addHeader("X-PSP-Signature", "any-signature");
 
         // Force signature to pass
-        when(webhookService.verifySignature(eq("any-signature"), anyString())).thenReturn(true);
+        when(webhookService.verifySignature(eq("any-signature"), any(ByteBuffer.class))).thenReturn(true);
 
         PayliteException ex = assertThrows(PayliteException.class,
                 () -> controller.handlePspWebhook("any-signature", request));
 
         assertTrue(ex.getMessage().contains("Failed to read request body"));
     }
+
+    @Test
+    void handlePspWebhook_asyncEnabled_queuesAndReturnsAccepted() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        WebhookRequest webhookRequest = new WebhookRequest();
+        webhookRequest.setPaymentId("pl_123");
+        webhookRequest.setEvent("payment.succeeded");
+
+        String rawBody = objectMapper.writeValueAsString(webhookRequest);
+        request.setContent(rawBody.getBytes());
+
+        when(webhookService.verifySignature("valid-signature", bytes(rawBody))).thenReturn(true);
+        when(asyncWebhookProcessor.isEnabled()).thenReturn(true);
+        when(asyncWebhookProcessor.submit(webhookRequest, rawBody))
+                .thenReturn(new WebhookResponse("ACCEPTED", "Webhook queued for processing"));
+
+        var entity = controller.handlePspWebhook("valid-signature", request);
+
+        assertEquals(202, entity.getStatusCode().value());
+        assertEquals("ACCEPTED", entity.getBody().getStatus());
+        verify(webhookService, never()).processWebhook(any(), any(), any());
+    }
+
+    @Test
+    void handlePspWebhookBatch_validSignature_verifiesOnceAndReturnsResults() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+
+        WebhookRequest first = new WebhookRequest();
+        first.setPaymentId("pl_1");
+        first.setEvent("payment.succeeded");
+        WebhookRequest second = new WebhookRequest();
+        second.setPaymentId("pl_2");
+        second.setEvent("payment.failed");
+        WebhookBatchRequest batch = new WebhookBatchRequest(List.of(first, second));
+
+        String rawBody = objectMapper.writeValueAsString(batch);
+        request.setContent(rawBody.getBytes());
+
+        when(webhookService.verifySignature("batch-signature", bytes(rawBody))).thenReturn(true);
+        when(webhookService.processWebhooks(batch)).thenReturn(new WebhookBatchResponse(List.of(
+                new WebhookEventResult("pl_1", "payment.succeeded", WebhookEventOutcome.PROCESSED, "Webhook processed successfully"),
+                new WebhookEventResult("pl_2", "payment.failed", WebhookEventOutcome.DUPLICATE, "Webhook already processed"))));
+
+        var entity = controller.handlePspWebhookBatch("batch-signature", request);
+
+        assertEquals(200, entity.getStatusCode().value());
+        assertEquals(2, entity.getBody().getResults().size());
+        verify(webhookService, times(1)).verifySignature(anyString(), any(ByteBuffer.class));
+    }
+
+    @Test
+    void handlePspWebhookBatch_invalidSignature_throwsUnauthorized() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent("{\"events\":[]}".getBytes());
+
+        when(webhookService.verifySignature(eq("bad-signature"), any(ByteBuffer.class))).thenReturn(false);
+
+        PayliteException ex = assertThrows(PayliteException.class,
+                () -> controller.handlePspWebhookBatch("bad-signature", request));
+
+        assertEquals("Invalid webhook signature", ex.getMessage());
+        verify(webhookService, never()).processWebhooks(any());
+    }
+
+    @Test
+    void handlePspWebhook_prettyPrintedBody_verifiesAndStoresExactBytes() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        String rawBody = "{\n  \"paymentId\": \"pl_123\",\n  \"event\": \"payment.succeeded\"\n}\n";
+        request.setContent(rawBody.getBytes(StandardCharsets.UTF_8));
+
+        when(webhookService.verifySignature("valid-signature", bytes(rawBody))).thenReturn(true);
+        when(webhookService.processWebhook(any(), eq("valid-signature"), eq(rawBody)))
+                .thenReturn(new WebhookResponse("SUCCESS", "Webhook processed successfully"));
+
+        var entity = controller.handlePspWebhook("valid-signature", request);
+
+        assertEquals(200, entity.getStatusCode().value());
+        verify(webhookService).processWebhook(argThat(parsed -> "pl_123".equals(parsed.getPaymentId())),
+                eq("valid-signature"), eq(rawBody));
+    }
+
+    @Test
+    void handlePspWebhook_bodyOverLimit_throwsPayloadTooLarge() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent(new byte[65 * 1024]);
+
+        PayliteException ex = assertThrows(PayliteException.class,
+                () -> controller.handlePspWebhook("any-signature", request));
+
+        assertEquals(413, ex.getStatus().value());
+        verify(webhookService, never()).verifySignature(anyString(), any(ByteBuffer.class));
+    }
+
+    private static ByteBuffer bytes(String body) {
+        return ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8));
+    }
 }
@@ -0,0 +1,117 @@
+package com.paylite.paymentservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paylite.paymentservice.modules.webhook.queue.WebhookJournal;
+import com.paylite.paymentservice.modules.webhook.queue.WebhookJournalEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebhookJournalTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void recover_returnsEntriesAfterCheckpoint() throws Exception {
+        try (WebhookJournal journal = new WebhookJournal(dataDir, objectMapper)) {
+            journal.recover();
+            journal.append("pl_1", "payment.succeeded", null);
+            journal.append("pl_2", "payment.failed", null);
+            journal.append("pl_3", "payment.succeeded", null);
+            journal.checkpoint(1);
+        }
+
+        try (WebhookJournal reopened = new WebhookJournal(dataDir, objectMapper)) {
+            List<WebhookJournalEntry> unapplied = reopened.recover();
+
+            assertEquals(2, unapplied.size());
+            assertEquals("pl_2", unapplied.get(0).getPaymentId());
+            assertEquals("pl_3", unapplied.get(1).getPaymentId());
+            assertEquals(4, reopened.append("pl_4", "payment.failed", null).getSeq());
+        }
+    }
+
+    @Test
+    void recover_truncatesTornTailSoLaterAppendsStayReadable() throws Exception {
+        try (WebhookJournal journal = new WebhookJournal(dataDir, objectMapper)) {
+            journal.recover();
+            journal.append("pl_1", "payment.succeeded", null);
+        }
+        // Crash mid-append: part of seq 2 reached the disk, its newline did not
+        Files.writeString(dataDir.resolve("webhooks.journal"), "{\"seq\":2,\"paym",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (WebhookJournal reopened = new WebhookJournal(dataDir, objectMapper)) {
+            assertEquals(1, reopened.recover().size());
+            reopened.append("pl_2", "payment.failed", null);
+        }
+
+        try (WebhookJournal reopened = new WebhookJournal(dataDir, objectMapper)) {
+            List<WebhookJournalEntry> unapplied = reopened.recover();
+
+            assertEquals(2, unapplied.size());
+            assertEquals("pl_2", unapplied.get(1).getPaymentId());
+            assertEquals(2, unapplied.get(1).getSeq());
+        }
+    }
+
+    @Test
+    void recover_unreadableCompleteLine_isCorruption() throws Exception {
+        try (WebhookJournal journal = new WebhookJournal(dataDir, objectMapper)) {
+            journal.recover();
+            journal.append("pl_1", "payment.succeeded", null);
+        }
+        Files.writeString(dataDir.resolve("webhooks.journal"),
+                "{\"seq\":2,\"paym\n{\"seq\":3,\"paymentId\":\"pl_3\",\"event\":\"payment.failed\"}\n",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (WebhookJournal reopened = new WebhookJournal(dataDir, objectMapper)) {
+            IOException e = assertThrows(IOException.class, reopened::recover);
+            assertTrue(e.getMessage().contains("Corrupt"));
+        }
+    }
+
+    @Test
+    void recover_skipsTornTrailingLine() throws Exception {
+        try (WebhookJournal journal = new WebhookJournal(dataDir, objectMapper)) {
+            journal.recover();
+            journal.append("pl_1", "payment.succeeded", null);
+        }
+        Files.writeString(dataDir.resolve("webhooks.journal"), "{\"seq\":2,\"paym",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (WebhookJournal reopened = new WebhookJournal(dataDir, objectMapper)) {
+            List<WebhookJournalEntry> unapplied = reopened.recover();
+
+            assertEquals(1, unapplied.size());
+            assertEquals(1, unapplied.get(0).getSeq());
+        }
+    }
+
+    @Test
+    void truncate_keepsSequenceMonotonicAcrossRestart() throws Exception {
+        try (WebhookJournal journal = new WebhookJournal(dataDir, objectMapper)) {
+            journal.recover();
+            journal.append("pl_1", "payment.succeeded", null);
+            journal.checkpoint(1);
+            journal.truncate();
+            assertEquals(0, journal.size());
+        }
+
+        try (WebhookJournal reopened = new WebhookJournal(dataDir, objectMapper)) {
+            assertTrue(reopened.recover().isEmpty());
+            assertEquals(2, reopened.append("pl_2", "payment.failed", null).getSeq());
+        }
+    }
+}
@@ -7,10 +7,16 @@ import com.paylite.paymentservice.common.exceptions.PayliteException;
 import com.paylite.paymentservice.common.utilities.HmacUtility;
 import com.paylite.paymentservice.common.utilities.IdGenerator;
 import com.paylite.paymentservice.modules.payment.enums.PaymentStatus;
+import com.paylite.paymentservice.modules.payment.enums.StatusTransitionOutcome;
 import com.paylite.paymentservice.modules.payment.service.PaymentService;
+import com.paylite.paymentservice.modules.webhook.cache.RecentWebhookEventFilter;
+import com.paylite.paymentservice.modules.webhook.dto.WebhookBatchRequest;
+import com.paylite.paymentservice.modules.webhook.dto.WebhookBatchResponse;
+import com.paylite.paymentservice.modules.webhook.dto.WebhookEventResult;
 import com.paylite.paymentservice.modules.webhook.dto.WebhookRequest;
 import com.paylite.paymentservice.modules.webhook.dto.WebhookResponse;
 import com.paylite.paymentservice.modules.webhook.entity.WebhookEvent;
+import com.paylite.paymentservice.modules.webhook.enums.WebhookEventOutcome;
 import com.paylite.paymentservice.modules.webhook.repository.WebhookEventRepository;
 import com.paylite.paymentservice.modules.webhook.service.WebhookService;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,6 +27,13 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -43,6 +56,12 @@ class WebhookServiceTests {
     @Mock
     private HmacUtility hmacUtility;
 
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private RecentWebhookEventFilter recentWebhookEventFilter;
+
     @InjectMocks
     private WebhookService webhookService;
 
@@ -56,11 +75,17 @@ class WebhookServiceTests {
     void setUp() {
         // set webhook secret (field is not final, so set via reflection)
         ReflectionTestUtils.setField(webhookService, "webhookSecret", "test-secret");
+        ReflectionTestUtils.setField(webhookService, "maxBatchEvents", 3);
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(webhookEventRepository.insertIfAbsent(any(WebhookEvent.class))).thenReturn(true);
+        // Unless a test says otherwise, the filter cannot rule anything out, so every event is checked
+        lenient().when(recentWebhookEventFilter.mightHaveSeen(anyString())).thenReturn(true);
     }
 
     @Test
     void verifySignature_valid_returnsTrue() {
-        String payload = "{\"foo\":\"bar\"}";
+        ByteBuffer payload = ByteBuffer.wrap("{\"foo\":\"bar\"}".getBytes(StandardCharsets.UTF_8));
         String signature = "sig";
 
         when(hmacUtility.verifyHmacSignature(signature, payload, "test-secret")).thenReturn(true);
@@ -72,7 +97,7 @@ class WebhookServiceTests {
 
     @Test
     void verifySignature_invalid_returnsFalse() {
-        String payload = "x";
+        ByteBuffer payload = ByteBuffer.wrap("x".getBytes(StandardCharsets.UTF_8));
         String signature = "bad";
 
         when(hmacUtility.verifyHmacSignature(signature, payload, "test-secret")).thenReturn(false);
@@ -82,6 +107,22 @@ class WebhookServiceTests {
         verify(hmacUtility).verifyHmacSignature(signature, payload, "test-secret");
     }
 
+    @Test
+    void processWebhook_withRawPayload_storesBodyAsReceived() throws Exception {
+        WebhookRequest req = new WebhookRequest();
+        req.setPaymentId(samplePaymentId);
+        req.setEvent(sampleEvent);
+        String rawPayload = "{\n  \"paymentId\": \"pl_1234\",\n  \"event\": \"payment.succeeded\"\n}";
+
+        when(idGenerator.generateEventId(samplePaymentId, sampleEvent)).thenReturn("pl_1234_payment.succeeded");
+
+        webhookService.processWebhook(req, "sig", rawPayload);
+
+        verify(webhookEventRepository).insertIfAbsent(webhookEventCaptor.capture());
+        assertEquals(rawPayload, webhookEventCaptor.getValue().getRawPayload());
+        verify(objectMapper, never()).writeValueAsString(any());
+    }
+
     @Test
     void processWebhook_duplicateEvent_returnsAlreadyProcessed() {
         WebhookRequest req = new WebhookRequest();
@@ -89,7 +130,7 @@ class WebhookServiceTests {
         req.setEvent(sampleEvent);
 
         when(idGenerator.generateEventId(samplePaymentId, sampleEvent)).thenReturn("pl_1234_payment.succeeded");
-        when(webhookEventRepository.existsByEventExternalId("pl_1234_payment.succeeded")).thenReturn(true);
+        when(webhookEventRepository.insertIfAbsent(any(WebhookEvent.class))).thenReturn(false);
 
         WebhookResponse resp = webhookService.processWebhook(req, "sig");
 
@@ -97,9 +138,9 @@ class WebhookServiceTests {
         assertEquals("SUCCESS", resp.getStatus());
         assertTrue(resp.getMessage().toLowerCase().contains("already processed"));
 
-        // ensure no calls to paymentService or save
+        // the unique index decided it, so no lookup ran and the payment was left alone
+        verify(webhookEventRepository, never()).existsByEventExternalId(anyString());
         verify(paymentService, never()).updatePaymentStatus(anyString(), any());
-        verify(webhookEventRepository, never()).save(any(WebhookEvent.class));
     }
 
     @Test
@@ -110,18 +151,15 @@ class WebhookServiceTests {
 
         String eventExternalId = "pl_1234_payment.succeeded";
         when(idGenerator.generateEventId(samplePaymentId, sampleEvent)).thenReturn(eventExternalId);
-        when(webhookEventRepository.existsByEventExternalId(eventExternalId)).thenReturn(false);
 
         // mapping event -> status
-        // call will attempt to update payment; stub to do nothing
-        doNothing().when(paymentService).updatePaymentStatus(samplePaymentId, PaymentStatus.SUCCEEDED);
+        // call will attempt to update payment; stub the transition as applied
+        when(paymentService.updatePaymentStatus(samplePaymentId, PaymentStatus.SUCCEEDED)).thenReturn(StatusTransitionOutcome.APPLIED);
 
         // objectMapper should serialize the request; return a compact JSON
         String rawPayload = "{\"paymentId\":\"pl_1234\",\"event\":\"payment.succeeded\"}";
         when(objectMapper.writeValueAsString(req)).thenReturn(rawPayload);
 
-        when(webhookEventRepository.save(any(WebhookEvent.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
         WebhookResponse resp = webhookService.processWebhook(req, "sig");
 
         assertNotNull(resp);
@@ -129,7 +167,7 @@ class WebhookServiceTests {
         assertTrue(resp.getMessage().toLowerCase().contains("processed"));
 
         // capture saved event and assert fields (skip processedAt check)
-        verify(webhookEventRepository).save(webhookEventCaptor.capture());
+        verify(webhookEventRepository).insertIfAbsent(webhookEventCaptor.capture());
         WebhookEvent saved = webhookEventCaptor.getValue();
 
         assertEquals(eventExternalId, saved.getEventExternalId());
@@ -149,10 +187,6 @@ class WebhookServiceTests {
 
         String eventExternalId = "pl_1234_payment.succeeded";
         when(idGenerator.generateEventId(samplePaymentId, sampleEvent)).thenReturn(eventExternalId);
-        when(webhookEventRepository.existsByEventExternalId(eventExternalId)).thenReturn(false);
-
-        // payment update succeeds
-        doNothing().when(paymentService).updatePaymentStatus(samplePaymentId, PaymentStatus.SUCCEEDED);
 
         // objectMapper will throw
         when(objectMapper.writeValueAsString(req)).thenThrow(new JsonProcessingException("boom") {
@@ -162,8 +196,9 @@ class WebhookServiceTests {
                 () -> webhookService.processWebhook(req, "sig"));
 
         assertNotNull(ex);
-        // ensure save was never called because serialization failed
-        verify(webhookEventRepository, never()).save(any());
+        // ensure nothing was written because serialization failed
+        verify(webhookEventRepository, never()).insertIfAbsent(any());
+        verify(paymentService, never()).updatePaymentStatus(anyString(), any());
     }
 
     @Test
@@ -174,15 +209,161 @@ class WebhookServiceTests {
 
         String eventExternalId = "pl_1234_payment.succeeded";
         when(idGenerator.generateEventId(samplePaymentId, sampleEvent)).thenReturn(eventExternalId);
-        when(webhookEventRepository.existsByEventExternalId(eventExternalId)).thenReturn(false);
 
         // simulate paymentService throwing not found
-        doThrow(PayliteException.notFound("Payment not found")).when(paymentService).updatePaymentStatus(samplePaymentId, PaymentStatus.SUCCEEDED);
+        when(paymentService.updatePaymentStatus(samplePaymentId, PaymentStatus.SUCCEEDED)).thenThrow(PayliteException.notFound("Payment not found"));
 
         PayliteException ex = assertThrows(PayliteException.class, () -> webhookService.processWebhook(req, "sig"));
         assertTrue(ex.getMessage().toLowerCase().contains("not found"));
 
-        // ensure we did not persist an event
-        verify(webhookEventRepository, never()).save(any());
+        // the event was inserted first, inside the transaction the exception rolls back
+        verify(webhookEventRepository).insertIfAbsent(any(WebhookEvent.class));
+    }
+
+    @Test
+    void processWebhooks_mixedBatch_dedupesWithOneQueryAndBatchesWrites() throws Exception {
+        WebhookRequest fresh = webhookRequest("pl_1", "payment.succeeded");
+        WebhookRequest stored = webhookRequest("pl_2", "payment.failed");
+        WebhookRequest unknownType = webhookRequest("pl_3", "payment.refunded");
+
+        when(idGenerator.generateEventId(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(0) + "_" + invocation.getArgument(1));
+        when(webhookEventRepository.findExistingEventExternalIds(anyCollection()))
+                .thenReturn(List.of("pl_2_payment.failed"));
+        when(paymentService.updatePaymentStatuses(Map.of("pl_1", PaymentStatus.SUCCEEDED)))
+                .thenReturn(Map.of("pl_1", StatusTransitionOutcome.APPLIED));
+        when(objectMapper.writeValueAsString(fresh)).thenReturn("{}");
+
+        WebhookBatchResponse response = webhookService.processWebhooks(
+                new WebhookBatchRequest(List.of(fresh, stored, unknownType)));
+
+        List<WebhookEventResult> results = response.getResults();
+        assertEquals(WebhookEventOutcome.PROCESSED, results.get(0).getOutcome());
+        assertEquals(WebhookEventOutcome.DUPLICATE, results.get(1).getOutcome());
+        assertEquals(WebhookEventOutcome.REJECTED, results.get(2).getOutcome());
+
+        verify(webhookEventRepository, times(1)).findExistingEventExternalIds(anyCollection());
+        verify(webhookEventRepository, never()).existsByEventExternalId(anyString());
+        verify(paymentService, never()).updatePaymentStatus(anyString(), any());
+        verify(webhookEventRepository).insertAll(argThat((List<WebhookEvent> saved) ->
+                saved.size() == 1 && saved.get(0).getEventExternalId().equals("pl_1_payment.succeeded")));
+    }
+
+    @Test
+    void processWebhooks_repeatedEventAndUnknownPayment_areNotRecorded() {
+        WebhookRequest first = webhookRequest("pl_1", "payment.succeeded");
+        WebhookRequest repeat = webhookRequest("pl_1", "payment.succeeded");
+        WebhookRequest missing = webhookRequest("pl_missing", "payment.failed");
+
+        when(idGenerator.generateEventId(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(0) + "_" + invocation.getArgument(1));
+        when(webhookEventRepository.findExistingEventExternalIds(anyCollection())).thenReturn(List.of());
+        when(paymentService.updatePaymentStatuses(anyMap())).thenReturn(Map.of("pl_1", StatusTransitionOutcome.APPLIED));
+
+        WebhookBatchResponse response = webhookService.processWebhooks(
+                new WebhookBatchRequest(List.of(first, repeat, missing)));
+
+        assertEquals(WebhookEventOutcome.PROCESSED, response.getResults().get(0).getOutcome());
+        assertEquals(WebhookEventOutcome.DUPLICATE, response.getResults().get(1).getOutcome());
+        assertEquals(WebhookEventOutcome.REJECTED, response.getResults().get(2).getOutcome());
+        assertTrue(response.getResults().get(2).getMessage().contains("not found"));
+        verify(webhookEventRepository).insertAll(argThat((List<WebhookEvent> saved) -> saved.size() == 1));
+    }
+
+    @Test
+    void processWebhooks_conflictingTerminalEvents_firstOneWins() {
+        WebhookRequest succeeded = webhookRequest("pl_1", "payment.succeeded");
+        WebhookRequest failed = webhookRequest("pl_1", "payment.failed");
+
+        when(idGenerator.generateEventId(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(0) + "_" + invocation.getArgument(1));
+        when(webhookEventRepository.findExistingEventExternalIds(anyCollection())).thenReturn(List.of());
+        when(paymentService.updatePaymentStatuses(Map.of("pl_1", PaymentStatus.SUCCEEDED)))
+                .thenReturn(Map.of("pl_1", StatusTransitionOutcome.APPLIED));
+
+        WebhookBatchResponse response = webhookService.processWebhooks(
+                new WebhookBatchRequest(List.of(succeeded, failed)));
+
+        assertEquals("Webhook processed successfully", response.getResults().get(0).getMessage());
+        assertEquals(WebhookEventOutcome.PROCESSED, response.getResults().get(1).getOutcome());
+        assertTrue(response.getResults().get(1).getMessage().contains("ignored"));
+        // Both events are stored, so a redelivery of the losing one is still a duplicate
+        verify(webhookEventRepository).insertAll(argThat((List<WebhookEvent> saved) -> saved.size() == 2));
+    }
+
+    @Test
+    void processWebhooks_eventForSettledPayment_isReportedAsIgnored() {
+        WebhookRequest late = webhookRequest("pl_1", "payment.failed");
+
+        when(idGenerator.generateEventId(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(0) + "_" + invocation.getArgument(1));
+        when(webhookEventRepository.findExistingEventExternalIds(anyCollection())).thenReturn(List.of());
+        when(paymentService.updatePaymentStatuses(anyMap())).thenReturn(Map.of("pl_1", StatusTransitionOutcome.REJECTED));
+
+        WebhookBatchResponse response = webhookService.processWebhooks(new WebhookBatchRequest(List.of(late)));
+
+        assertTrue(response.getResults().get(0).getMessage().contains("ignored"));
+    }
+
+    @Test
+    void processWebhooks_tooManyEvents_throwsBadRequest() {
+        WebhookRequest event = webhookRequest("pl_1", "payment.succeeded");
+        WebhookBatchRequest request = new WebhookBatchRequest(List.of(event, event, event, event));
+
+        assertThrows(PayliteException.class, () -> webhookService.processWebhooks(request));
+        verifyNoInteractions(webhookEventRepository, paymentService);
+    }
+
+    @Test
+    void processWebhook_recordsEventInFilterForLaterBatches() throws Exception {
+        WebhookRequest req = webhookRequest(samplePaymentId, sampleEvent);
+
+        when(idGenerator.generateEventId(samplePaymentId, sampleEvent)).thenReturn("evt_new");
+        when(paymentService.updatePaymentStatus(samplePaymentId, PaymentStatus.SUCCEEDED)).thenReturn(StatusTransitionOutcome.APPLIED);
+        when(objectMapper.writeValueAsString(req)).thenReturn("{}");
+
+        webhookService.processWebhook(req, "sig");
+
+        verify(recentWebhookEventFilter, never()).mightHaveSeen(anyString());
+        verify(recentWebhookEventFilter).add("evt_new");
+    }
+
+    @Test
+    void processWebhooks_filterProvesAllEventsNew_skipsDedupeQuery() {
+        WebhookRequest first = webhookRequest("pl_1", "payment.succeeded");
+        WebhookRequest second = webhookRequest("pl_2", "payment.failed");
+
+        when(idGenerator.generateEventId(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(0) + "_" + invocation.getArgument(1));
+        when(recentWebhookEventFilter.mightHaveSeen(anyString())).thenReturn(false);
+        when(paymentService.updatePaymentStatuses(anyMap())).thenReturn(Map.of(
+                "pl_1", StatusTransitionOutcome.APPLIED, "pl_2", StatusTransitionOutcome.APPLIED));
+
+        webhookService.processWebhooks(new WebhookBatchRequest(List.of(first, second)));
+
+        verify(webhookEventRepository, never()).findExistingEventExternalIds(anyCollection());
+        verify(recentWebhookEventFilter).addAll(List.of("pl_1_payment.succeeded", "pl_2_payment.failed"));
+    }
+
+    @Test
+    void processWebhook_lateEventForSettledPayment_isRecordedButIgnored() throws Exception {
+        WebhookRequest req = webhookRequest(samplePaymentId, "payment.failed");
+
+        when(idGenerator.generateEventId(samplePaymentId, "payment.failed")).thenReturn("evt_late");
+        when(paymentService.updatePaymentStatus(samplePaymentId, PaymentStatus.FAILED)).thenReturn(StatusTransitionOutcome.REJECTED);
+        when(objectMapper.writeValueAsString(req)).thenReturn("{}");
+
+        WebhookResponse resp = webhookService.processWebhook(req, "sig");
+
+        assertEquals("SUCCESS", resp.getStatus());
+        assertTrue(resp.getMessage().contains("ignored"));
+        verify(webhookEventRepository).insertIfAbsent(any(WebhookEvent.class));
+    }
+
+    private WebhookRequest webhookRequest(String paymentId, String event) {
+        WebhookRequest request = new WebhookRequest();
+        request.setPaymentId(paymentId);
+        request.setEvent(event);
+        return request;
     }
 }